@@ -0,0 +1,216 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Multimap;
+
+/**
+ * Benchmarks of the hot paths of {@link RpmSpecParser}, across each shape of spec file in the {@link SpecCorpus}.
+ * The end to end parse is measured from a file and from bytes already in memory, and the two phases that do 
+ * most of the work, classifying the lines and expanding the references, are measured on their own. Run them 
+ * with <code>gradle jmh</code>, which adds the GC profiler to report the allocation rate alongside the throughput.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RpmSpecParserBenchmark {
+
+    @Param({ "SMALL", "TYPICAL", "MANY_DEFINES", "DEEP_NESTING", "CONDITIONALS", "BIG_FILES" })
+    private SpecCorpus m_corpus;
+
+    @Param({ "SCANNER", "REGEX" })
+    private RpmSpecParser.Classifier m_classifier;
+
+    private RpmSpecParser m_parser;
+    private Path m_specFile;
+    private byte[] m_bytes;
+    private String[] m_lines;
+
+    /** The properties of the spec file as they are before their references are expanded */
+    private ListMultimap<String, String> m_unexpanded;
+
+    @Setup
+    public void setUp() throws IOException {
+        m_parser = RpmSpecParser.createParser(m_classifier);
+        String text = m_corpus.generate();
+        m_bytes = text.getBytes(StandardCharsets.UTF_8);
+        m_specFile = Files.createTempFile("benchmark", ".spec");
+        Files.write(m_specFile, m_bytes);
+
+        List<String> lines = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new StringReader(text));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lines.add(line);
+        }
+        m_lines = lines.toArray(new String[lines.size()]);
+
+        m_unexpanded = ArrayListMultimap.create();
+        final RpmSpecParser.Position position = m_parser.newPosition(m_unexpanded);
+        SpecLineHandler collector = new SpecLineHandlerAdapter() {
+            @Override
+            public boolean tag(String key, String value) {
+                if (!position.inSubpackage()) {
+                    m_unexpanded.put(key, value);
+                }
+                return true;
+            }
+
+            @Override
+            public boolean macroDefinition(String name, String value) {
+                m_unexpanded.put(name, value);
+                return true;
+            }
+        };
+        for (String each : m_lines) {
+            m_parser.classifyLine(each, position, collector);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(m_specFile);
+    }
+
+    /** Read, classify and expand a spec file */
+    @Benchmark
+    public Multimap<String, String> parsePath() throws IOException {
+        return m_parser.parse(m_specFile);
+    }
+
+    /** Decode, classify and expand a spec file that is already in memory */
+    @Benchmark
+    public Multimap<String, String> parseBytes() throws IOException {
+        return m_parser.parse(ByteBuffer.wrap(m_bytes));
+    }
+
+    /** Parse a spec file into the compact form of its properties */
+    @Benchmark
+    public RpmSpecProperties parseProperties() throws IOException {
+        return m_parser.parseProperties(ByteBuffer.wrap(m_bytes));
+    }
+
+    /** Build the model of the sections and packages of a spec file */
+    @Benchmark
+    public RpmSpecDocument parseDocument() throws IOException {
+        return m_parser.parseDocument(m_specFile);
+    }
+
+    /** Classify lines that have already been decoded, which is the tag matching loop on its own */
+    @Benchmark
+    public void classify(final Blackhole blackhole) {
+        SpecLineHandler handler = new SpecLineHandlerAdapter() {
+            @Override
+            public boolean tag(String key, String value) {
+                blackhole.consume(value);
+                return true;
+            }
+
+            @Override
+            public boolean macroDefinition(String name, String value) {
+                blackhole.consume(value);
+                return true;
+            }
+        };
+        RpmSpecParser.Position position = m_parser.newPosition(m_unexpanded);
+        for (String line : m_lines) {
+            m_parser.classifyLine(line, position, handler);
+        }
+    }
+
+    /** Expand the references of properties that have already been classified, including the copy they are expanded in */
+    @Benchmark
+    public ListMultimap<String, String> expandReferences() {
+        ListMultimap<String, String> properties = ArrayListMultimap.create(m_unexpanded);
+        m_parser.expandReferences(properties, m_parser.newPosition(properties));
+        return properties;
+    }
+
+    /** The cost of the copy made by {@link #expandReferences()}, to be subtracted from it */
+    @Benchmark
+    public ListMultimap<String, String> copyUnexpanded() {
+        return ArrayListMultimap.create(m_unexpanded);
+    }
+
+    /** Receives nothing, so that a benchmark only has to override the callbacks it measures */
+    private static class SpecLineHandlerAdapter implements SpecLineHandler {
+        @Override
+        public boolean line(String line) {
+            return true;
+        }
+
+        @Override
+        public boolean tag(String key, String value) {
+            return true;
+        }
+
+        @Override
+        public boolean macroDefinition(String name, String value) {
+            return true;
+        }
+
+        @Override
+        public boolean macroUndefinition(String name) {
+            return true;
+        }
+
+        @Override
+        public boolean sectionStart(String section, String arguments) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+/**
+ * Generates the spec files that the benchmarks parse. Each shape stresses a different part of the parser,
+ * from a small spec that is mostly preamble to spec files that are dominated by macro definitions, 
+ * deeply nested references or very large file lists.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public enum SpecCorpus {
+
+    /** A spec file of about the size of p4bugzilla.spec */
+    SMALL {
+        @Override
+        String generate() {
+            StringBuilder spec = new StringBuilder();
+            preamble(spec, "small");
+            script(spec, "%prep", 2);
+            files(spec, "", 5);
+            changelog(spec, 3);
+            return spec.toString();
+        }
+    },
+
+    /** A spec file of the kind found in a distribution, with a few subpackages, scripts and a change log */
+    TYPICAL {
+        @Override
+        String generate() {
+            StringBuilder spec = new StringBuilder();
+            for (int i = 0; i < 10; ++i) {
+                spec.append("%define option").append(i).append(" --with-feature").append(i).append('\n');
+            }
+            preamble(spec, "typical");
+            for (String subpackage : new String[] { "devel", "doc" }) {
+                spec.append("\n%package ").append(subpackage).append('\n');
+                spec.append("Summary: The ").append(subpackage).append(" files of %{name}\n");
+                spec.append("Requires: %{name} = %{version}-%{release}\n");
+                spec.append("\n%description ").append(subpackage).append("\nThe ").append(subpackage).append(" files.\n");
+            }
+            script(spec, "%prep", 5);
+            script(spec, "%build", 20);
+            script(spec, "%install", 30);
+            files(spec, "", 60);
+            files(spec, " devel", 30);
+            files(spec, " doc", 20);
+            changelog(spec, 40);
+            return spec.toString();
+        }
+    },
+
+    /** Hundreds of macro definitions, each referring to two of the earlier ones */
+    MANY_DEFINES {
+        @Override
+        String generate() {
+            StringBuilder spec = new StringBuilder("%define m0 base\n");
+            for (int i = 1; i < 500; ++i) {
+                spec.append("%define m").append(i).append(" value").append(i)
+                    .append("-%{m").append(i / 2).append("}-%m").append(i / 3).append('\n');
+            }
+            preamble(spec, "defines");
+            files(spec, "", 10);
+            return spec.toString();
+        }
+    },
+
+    /** A chain of macros that each refer to the previous one, through plain and conditional references */
+    DEEP_NESTING {
+        @Override
+        String generate() {
+            StringBuilder spec = new StringBuilder("%define d0 %{?_bindir:%{_bindir}}base\n");
+            for (int i = 1; i < 64; ++i) {
+                spec.append("%define d").append(i).append(" %{?d").append(i - 1).append(":%{d").append(i - 1)
+                    .append("}}/%{!?undefined:level").append(i).append("}\n");
+            }
+            preamble(spec, "nesting");
+            spec.append("Prefix: %{d63}\n");
+            files(spec, "", 10);
+            return spec.toString();
+        }
+    },
+
+    /** Blocks for many distributions, of which all but one are skipped */
+    CONDITIONALS {
+        @Override
+        String generate() {
+            StringBuilder spec = new StringBuilder();
+            preamble(spec, "conditionals");
+            for (int i = 0; i < 50; ++i) {
+                spec.append("%if 0%{?distro").append(i).append("}\n");
+                for (int j = 0; j < 20; ++j) {
+                    spec.append("Requires: distro").append(i).append("-dependency").append(j).append('\n');
+                    spec.append("%define distro").append(i).append("_option").append(j).append(" %{name}-").append(j).append('\n');
+                }
+                spec.append("%endif\n");
+            }
+            files(spec, "", 10);
+            return spec.toString();
+        }
+    },
+
+    /** Several subpackages with thousands of files each and a long change log */
+    BIG_FILES {
+        @Override
+        String generate() {
+            StringBuilder spec = new StringBuilder();
+            preamble(spec, "big");
+            for (int i = 0; i < 4; ++i) {
+                spec.append("\n%package part").append(i).append("\nSummary: Part ").append(i).append('\n');
+            }
+            script(spec, "%install", 10);
+            files(spec, "", 5000);
+            for (int i = 0; i < 4; ++i) {
+                files(spec, " part" + i, 5000);
+            }
+            changelog(spec, 2000);
+            return spec.toString();
+        }
+    };
+
+    /** @return the text of a spec file of this shape. */
+    abstract String generate();
+
+    private static void preamble(StringBuilder spec, String name) {
+        spec.append("Name: ").append(name).append('\n')
+            .append("Version: 1.2.3\n")
+            .append("Release: 4%{?dist}\n")
+            .append("Summary: A generated spec file called %{name}\n")
+            .append("License: BSD\n")
+            .append("Group: Development/Tools\n")
+            .append("URL: http://www.example.com/%{name}\n")
+            .append("Source0: %{url}/%{name}-%{version}.tar.gz\n")
+            .append("BuildRoot: %{_tmppath}/%{name}-%{version}-%{release}-root\n")
+            .append("BuildRequires: ant >= 1.8\n")
+            .append("Requires: jdk >= 1.7\n")
+            .append("\n%description\nA spec file generated to measure the parser.\n");
+    }
+
+    private static void script(StringBuilder spec, String section, int lines) {
+        spec.append('\n').append(section).append('\n');
+        for (int i = 0; i < lines; ++i) {
+            spec.append("install -m 644 build/file").append(i).append(" %{buildroot}%{_datadir}/%{name}\n");
+        }
+    }
+
+    private static void files(StringBuilder spec, String arguments, int lines) {
+        spec.append("\n%files").append(arguments).append("\n%defattr(-,root,root,-)\n");
+        for (int i = 0; i < lines; ++i) {
+            spec.append("%{_datadir}/%{name}/lib/module").append(i / 100).append("/file").append(i).append(".jar\n");
+        }
+    }
+
+    private static void changelog(StringBuilder spec, int entries) {
+        spec.append("\n%changelog\n");
+        for (int i = 0; i < entries; ++i) {
+            spec.append("* Sat Oct 17 2026 Warwick Hunter <w.hunter@computer.org> - 1.2.").append(i).append("-1\n")
+                .append("- Change number ").append(i).append("\n\n");
+        }
+    }
+}
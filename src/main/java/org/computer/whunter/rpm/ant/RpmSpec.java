@@ -24,31 +24,102 @@
  */
 package org.computer.whunter.rpm.ant;
 
-import java.io.FileNotFoundException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.DirectoryScanner;
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.PropertyHelper;
 import org.apache.tools.ant.Task;
+import org.apache.tools.ant.types.FileSet;
+import org.computer.whunter.rpm.parser.RpmSpecParseCache;
+import org.computer.whunter.rpm.parser.RpmSpecParseMetrics;
+import org.computer.whunter.rpm.parser.RpmSpecParseMonitor;
 import org.computer.whunter.rpm.parser.RpmSpecParser;
-
-import com.google.common.collect.Multimap;
+import org.computer.whunter.rpm.parser.RpmSpecProperties;
 
 /**
  * An Ant task that parses an RPM Spec file and pushes the information from the spec file
  * into the ant properties.
+ * <p>
+ * The results of parsing are shared by every invocation of the task in the same JVM, so a spec file 
+ * that has not been modified is only parsed once. A snapshot file can also be given with srcfile, the 
+ * properties are written to it after parsing and read from it by later builds while it is newer than the 
+ * spec file.
+ * The metrics of each parse are logged at verbose level.
+ * <p>
+ * Many spec files can be parsed by one invocation by nesting filesets in the task. They are parsed in 
+ * parallel on a bounded number of threads and the properties of each are set under a prefix of its own, 
+ * the env followed by the value of its <code>name</code> field, such as <code>rpm.p4bugzilla.version</code>. 
+ * The properties are set in the order of the filesets, on the thread that runs the task.
  * 
  * @author Warwick Hunter (w.hunter@computer.org)
  * @date   2012-02-21
  */
 public class RpmSpec extends Task {
+
+    /** The number of spec files whose results are kept for later invocations */
+    private static final int CACHE_SIZE = 256;
+
+    /** The key in a snapshot of the spec file it was written for */
+    private static final String SNAPSHOT_SOURCE_KEY = "rpmspec.snapshot.source";
+
+    /** The parse on each thread, which collects the messages to be logged by the task */
+    private static final ThreadLocal<Parsed> PARSING = new ThreadLocal<Parsed>();
+
+    private static final RpmSpecParser PARSER = RpmSpecParser.createParser().withMonitor(new RpmSpecParseMonitor() {
+        @Override
+        public void parsed(RpmSpecParseMetrics metrics) {
+            Parsed parsed = PARSING.get();
+            if (parsed != null) {
+                parsed.m_messages.add("Parsed RPM spec file " + parsed.m_specFile + ": " + metrics);
+            }
+        }
+    });
+
+    private static final RpmSpecParseCache CACHE = RpmSpecParseCache.createCache(PARSER, CACHE_SIZE);
     
     private String m_srcfile;
     private String m_env = "rpm";
     private String m_if;
     private String m_unless;
+    private boolean m_cache = true;
+    private File m_snapshot;
+    private final List<FileSet> m_filesets = new ArrayList<FileSet>();
+    private int m_threads = Runtime.getRuntime().availableProcessors();
+    private String m_prefixfield = "name";
+    private boolean m_failonerror = true;
+
+    /** The outcome of parsing one spec file, which may be on another thread */
+    private static final class Parsed {
+        private final Path m_specFile;
+        private final List<String> m_messages = new ArrayList<String>();
+        private Map<String, String> m_properties;
+        private Exception m_error;
+
+        private Parsed(Path specFile) {
+            m_specFile = specFile;
+        }
+    }
     
     @Override
     public void execute() throws BuildException {
@@ -70,22 +141,230 @@ public class RpmSpec extends Task {
             }
         }
         
+        if (m_srcfile == null && m_filesets.isEmpty()) {
+            throw new BuildException("Either the srcfile attribute or a nested fileset is required");
+        }
+        if (m_snapshot != null && !m_filesets.isEmpty()) {
+            // A snapshot holds the properties of one spec file
+            throw new BuildException("The snapshot attribute cannot be used with nested filesets", getLocation());
+        }
+        if (m_srcfile != null) {
+            executeSingle();
+        }
+        if (!m_filesets.isEmpty()) {
+            executeFilesets();
+        }
+        super.execute();
+    }
+
+    /** Parse the spec file named by the srcfile attribute, setting its properties under the env */
+    private void executeSingle() {
+        // Parse the RPM spec file and extract the interesting fields and macro definitions
+        Path specFile = Paths.get(m_srcfile);
+        Map<String, String> properties;
         try {
-            // Parse the RPM spec file and extract the interesting fields and macro definitions
-            RpmSpecParser parser = RpmSpecParser.createParser(m_srcfile);
-            Multimap<String, String> properties = parser.parse();
-            
-            // Push all the fields and macros into the project as properties
-            Project project = getProject();
-            StringBuilder prefix = new StringBuilder(m_env).append(".");
-            for (Map.Entry<String, String> entry : properties.entries()) {
-               project.setProperty(prefix.toString() + entry.getKey(), entry.getValue());
+            properties = readSnapshot(specFile);
+            if (properties == null) {
+                Parsed parsed = parse(specFile, m_cache);
+                logMessages(parsed);
+                if (parsed.m_error != null) {
+                    failed(specFile, parsed.m_error);
+                    return;
+                }
+                properties = parsed.m_properties;
+                writeSnapshot(specFile, properties);
             }
         }
-        catch (FileNotFoundException e) {
-            throw new BuildException("RPM spec file not found", e);
+        catch (IOException e) {
+            failed(specFile, e);
+            return;
+        }
+        
+        // Push all the fields and macros into the project as properties
+        setProperties(m_env + ".", properties);
+    }
+
+    /** Parse the spec files of the filesets in parallel, setting the properties of each under a prefix of its own */
+    private void executeFilesets() {
+        List<Path> specFiles = new ArrayList<Path>();
+        for (FileSet fileset : m_filesets) {
+            DirectoryScanner scanner = fileset.getDirectoryScanner(getProject());
+            for (String name : scanner.getIncludedFiles()) {
+                specFiles.add(new File(scanner.getBasedir(), name).toPath());
+            }
+        }
+        if (specFiles.isEmpty()) {
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(m_threads, specFiles.size()));
+        try {
+            List<Future<Parsed>> futures = new ArrayList<Future<Parsed>>(specFiles.size());
+            for (final Path specFile : specFiles) {
+                final boolean cache = m_cache;
+                futures.add(executor.submit(new Callable<Parsed>() {
+                    @Override
+                    public Parsed call() {
+                        return parse(specFile, cache);
+                    }
+                }));
+            }
+
+            // Take the results in order so the properties are set the same way every time
+            Set<String> prefixes = new HashSet<String>();
+            for (Future<Parsed> future : futures) {
+                Parsed parsed = get(future);
+                logMessages(parsed);
+                if (parsed.m_error != null) {
+                    failed(parsed.m_specFile, parsed.m_error);
+                    continue;
+                }
+                String prefix = m_env + "." + specName(parsed) + ".";
+                if (!prefixes.add(prefix)) {
+                    log("RPM spec file " + parsed.m_specFile + " has the same " + m_prefixfield 
+                        + " as an earlier one, its properties are set under " + prefix + " too", Project.MSG_WARN);
+                }
+                setProperties(prefix, parsed.m_properties);
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /** The name a spec file's properties are set under, the value of the prefix field or else the name of the file */
+    private String specName(Parsed parsed) {
+        String name = parsed.m_properties.get(m_prefixfield);
+        if (name == null || name.isEmpty()) {
+            name = parsed.m_specFile.getFileName().toString();
+            if (name.endsWith(".spec")) {
+                name = name.substring(0, name.length() - ".spec".length());
+            }
+        }
+        return name;
+    }
+
+    private void setProperties(String prefix, Map<String, String> properties) {
+        Project project = getProject();
+        for (Map.Entry<String, String> entry : properties.entrySet()) {
+           project.setProperty(prefix + entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void logMessages(Parsed parsed) {
+        for (String message : parsed.m_messages) {
+            log(message, Project.MSG_VERBOSE);
+        }
+    }
+
+    /** Stop the build, or warn and carry on if failonerror is false */
+    private void failed(Path specFile, Exception e) {
+        String message;
+        if (e instanceof NoSuchFileException) {
+            message = "RPM spec file not found";
+        } else if (e instanceof IOException) {
+            message = "RPM spec file could not be read";
+        } else {
+            message = "RPM spec file could not be parsed";
+        }
+        if (m_failonerror) {
+            throw new BuildException(message + ": " + specFile, e, getLocation());
+        }
+        log(message + ": " + specFile + ": " + e, Project.MSG_WARN);
+    }
+
+    private static Parsed get(Future<Parsed> future) {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BuildException("Interrupted while parsing RPM spec files", e);
+        }
+        catch (ExecutionException e) {
+            // The parse captures exceptions so only errors get here
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new BuildException(cause);
+        }
+    }
+
+    /** 
+     * Parse a spec file, or use the result of an earlier invocation. Where a field has several values the
+     * last one is used, as it would be if each value were set as a property in turn. This may be called on any
+     * thread, so the messages to log are collected rather than logged.
+     */
+    private static Parsed parse(Path specFile, boolean cache) {
+        Parsed parsed = new Parsed(specFile);
+        RpmSpecProperties properties;
+        PARSING.set(parsed);
+        try {
+            if (cache) {
+                if (CACHE.isCurrent(specFile)) {
+                    parsed.m_messages.add("Using cached properties of RPM spec file " + specFile);
+                }
+                properties = CACHE.parseProperties(specFile);
+            } else {
+                properties = PARSER.parseProperties(specFile);
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            // A spec file the parser cannot make sense of fails like one that cannot be read
+            parsed.m_error = e;
+            return parsed;
+        }
+        finally {
+            PARSING.remove();
+        }
+        parsed.m_properties = new LinkedHashMap<String, String>();
+        for (String key : properties.getKeys()) {
+            List<String> values = properties.getAll(key);
+            parsed.m_properties.put(key, values.get(values.size() - 1));
+        }
+        return parsed;
+    }
+
+    /** Read the properties from the snapshot file if there is one that is newer than the spec file */
+    private Map<String, String> readSnapshot(Path specFile) throws IOException {
+        if (m_snapshot == null || !m_cache || !m_snapshot.isFile()) {
+            return null;
+        }
+        if (m_snapshot.lastModified() < Files.getLastModifiedTime(specFile).toMillis()) {
+            return null;
+        }
+        Properties snapshot = new Properties();
+        try (InputStream input = Files.newInputStream(m_snapshot.toPath())) {
+            snapshot.load(input);
+        }
+        if (!specFile.toAbsolutePath().normalize().toString().equals(snapshot.getProperty(SNAPSHOT_SOURCE_KEY))) {
+            return null;
+        }
+        snapshot.remove(SNAPSHOT_SOURCE_KEY);
+        log("Using snapshot " + m_snapshot + " of RPM spec file " + m_srcfile, Project.MSG_VERBOSE);
+        Map<String, String> properties = new LinkedHashMap<String, String>();
+        for (String key : snapshot.stringPropertyNames()) {
+            properties.put(key, snapshot.getProperty(key));
+        }
+        return properties;
+    }
+
+    /** Write the properties to the snapshot file, if there is one */
+    private void writeSnapshot(Path specFile, Map<String, String> properties) throws IOException {
+        if (m_snapshot == null) {
+            return;
+        }
+        Properties snapshot = new Properties();
+        snapshot.putAll(properties);
+        snapshot.setProperty(SNAPSHOT_SOURCE_KEY, specFile.toAbsolutePath().normalize().toString());
+        File directory = m_snapshot.getAbsoluteFile().getParentFile();
+        if (directory != null) {
+            Files.createDirectories(directory.toPath());
+        }
+        try (OutputStream output = Files.newOutputStream(m_snapshot.toPath())) {
+            snapshot.store(output, "Properties of RPM spec file " + m_srcfile);
         }
-        super.execute();
     }
 
     public String getSrcfile() {
@@ -119,4 +398,51 @@ public class RpmSpec extends Task {
     public void setUnless(String unless) {
         m_unless = unless;
     }
-}
+
+    public boolean isCache() {
+        return m_cache;
+    }
+
+    public void setCache(boolean cache) {
+        m_cache = cache;
+    }
+
+    public File getSnapshot() {
+        return m_snapshot;
+    }
+
+    public void setSnapshot(File snapshot) {
+        m_snapshot = snapshot;
+    }
+
+    public void addFileset(FileSet fileset) {
+        m_filesets.add(fileset);
+    }
+
+    public int getThreads() {
+        return m_threads;
+    }
+
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new BuildException("threads must be at least 1");
+        }
+        m_threads = threads;
+    }
+
+    public String getPrefixfield() {
+        return m_prefixfield;
+    }
+
+    public void setPrefixfield(String prefixfield) {
+        m_prefixfield = prefixfield;
+    }
+
+    public boolean isFailonerror() {
+        return m_failonerror;
+    }
+
+    public void setFailonerror(boolean failonerror) {
+        m_failonerror = failonerror;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,253 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.cli;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import org.computer.whunter.rpm.parser.RpmSpecProperties;
+
+/**
+ * Writes the records extracted from spec files in one of the output formats of {@link RpmSpecExtractor}.
+ * Each record is written as soon as it is given, nothing is held back.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+abstract class RecordWriter {
+
+    protected final Writer m_out;
+
+    /** The fields selected, or null if every field and macro is written */
+    protected final List<String> m_fields;
+
+    private RecordWriter(Writer out, List<String> fields) {
+        m_out = out;
+        m_fields = fields;
+    }
+
+    /**
+     * @param format <code>json</code> or <code>csv</code>.
+     * @param out receives the records.
+     * @param fields the fields selected, or null for all of them.
+     * @return the writer of the format or null if the format is not known.
+     */
+    static RecordWriter create(String format, Writer out, List<String> fields) {
+        switch (format) {
+            case "json": return new JsonWriter(out, fields);
+            case "csv":  return new CsvWriter(out, fields);
+            default:     return null;
+        }
+    }
+
+    /** Write anything that comes before the records */
+    void start() throws IOException {
+    }
+
+    /**
+     * @param path the path of the spec file as it is to be shown.
+     * @param properties the fields and macros of the spec file.
+     */
+    abstract void write(String path, RpmSpecProperties properties) throws IOException;
+
+    /**
+     * @param path the path of the spec file as it is to be shown.
+     * @param error why the spec file could not be parsed.
+     * @return true if the error was written, false if the format has no place for it.
+     */
+    abstract boolean writeError(String path, String error) throws IOException;
+
+    /** 
+     * A JSON object on a line of its own for each spec file. The fields and macros are members of its 
+     * <code>properties</code> object, so that a macro cannot clash with <code>path</code>, and a field with 
+     * several values is an array. A spec file that could not be parsed has an <code>error</code> instead.
+     */
+    private static final class JsonWriter extends RecordWriter {
+
+        JsonWriter(Writer out, List<String> fields) {
+            super(out, fields);
+        }
+
+        @Override
+        void write(String path, RpmSpecProperties properties) throws IOException {
+            m_out.write("{\"path\":");
+            string(path);
+            m_out.write(",\"properties\":{");
+            List<String> keys = (m_fields == null) ? properties.getKeys() : m_fields;
+            for (int i = 0; i < keys.size(); ++i) {
+                if (i > 0) {
+                    m_out.write(',');
+                }
+                member(keys.get(i), properties.getAll(keys.get(i)));
+            }
+            m_out.write("}}\n");
+        }
+
+        @Override
+        boolean writeError(String path, String error) throws IOException {
+            m_out.write("{\"path\":");
+            string(path);
+            m_out.write(",\"error\":");
+            string(error);
+            m_out.write("}\n");
+            return true;
+        }
+
+        private void member(String name, List<String> values) throws IOException {
+            string(name);
+            m_out.write(':');
+            if (values.isEmpty()) {
+                m_out.write("null");
+            } else if (values.size() == 1) {
+                string(values.get(0));
+            } else {
+                m_out.write('[');
+                for (int i = 0; i < values.size(); ++i) {
+                    if (i > 0) {
+                        m_out.write(',');
+                    }
+                    string(values.get(i));
+                }
+                m_out.write(']');
+            }
+        }
+
+        private void string(String text) throws IOException {
+            m_out.write('"');
+            for (int i = 0; i < text.length(); ++i) {
+                char ch = text.charAt(i);
+                switch (ch) {
+                    case '"':  m_out.write("\\\""); break;
+                    case '\\': m_out.write("\\\\"); break;
+                    case '\n': m_out.write("\\n"); break;
+                    case '\r': m_out.write("\\r"); break;
+                    case '\t': m_out.write("\\t"); break;
+                    default:
+                        if (ch < 0x20) {
+                            m_out.write("\\u00");
+                            m_out.write(Character.forDigit(ch >> 4, 16));
+                            m_out.write(Character.forDigit(ch & 0xF, 16));
+                        } else {
+                            m_out.write(ch);
+                        }
+                }
+            }
+            m_out.write('"');
+        }
+    }
+
+    /** 
+     * Comma separated values with a header. With fields selected there is a row for each spec file and a column 
+     * for each field, with several values joined by commas. Otherwise there is a row for each value of each field 
+     * and macro, with the columns path, key and value. Errors are not written as they have no column.
+     */
+    private static final class CsvWriter extends RecordWriter {
+
+        CsvWriter(Writer out, List<String> fields) {
+            super(out, fields);
+        }
+
+        @Override
+        void start() throws IOException {
+            m_out.write("path");
+            if (m_fields == null) {
+                m_out.write(",key,value");
+            } else {
+                for (String field : m_fields) {
+                    m_out.write(',');
+                    cell(field);
+                }
+            }
+            m_out.write("\r\n");
+        }
+
+        @Override
+        void write(String path, RpmSpecProperties properties) throws IOException {
+            if (m_fields == null) {
+                for (String key : properties.getKeys()) {
+                    for (String value : properties.getAll(key)) {
+                        cell(path);
+                        m_out.write(',');
+                        cell(key);
+                        m_out.write(',');
+                        cell(value);
+                        m_out.write("\r\n");
+                    }
+                }
+                return;
+            }
+            cell(path);
+            for (String field : m_fields) {
+                m_out.write(',');
+                List<String> fieldValues = properties.getAll(field);
+                if (!fieldValues.isEmpty()) {
+                    cell(join(fieldValues));
+                }
+            }
+            m_out.write("\r\n");
+        }
+
+        @Override
+        boolean writeError(String path, String error) {
+            return false;
+        }
+
+        private static String join(List<String> values) {
+            if (values.size() == 1) {
+                return values.get(0);
+            }
+            StringBuilder joined = new StringBuilder();
+            for (String value : values) {
+                if (joined.length() > 0) {
+                    joined.append(", ");
+                }
+                joined.append(value);
+            }
+            return joined.toString();
+        }
+
+        /** Write a cell, quoting it if it holds a comma, a quote or a line break */
+        private void cell(String text) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < text.length() && !quote; ++i) {
+                char ch = text.charAt(i);
+                quote = ch == ',' || ch == '"' || ch == '\n' || ch == '\r';
+            }
+            if (!quote) {
+                m_out.write(text);
+                return;
+            }
+            m_out.write('"');
+            for (int i = 0; i < text.length(); ++i) {
+                char ch = text.charAt(i);
+                if (ch == '"') {
+                    m_out.write('"');
+                }
+                m_out.write(ch);
+            }
+            m_out.write('"');
+        }
+    }
+}
@@ -0,0 +1,380 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.cli;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.computer.whunter.rpm.parser.MacroTable;
+import org.computer.whunter.rpm.parser.RpmSpecBatchParser;
+import org.computer.whunter.rpm.parser.RpmSpecListenerAdapter;
+import org.computer.whunter.rpm.parser.RpmSpecParseResult;
+import org.computer.whunter.rpm.parser.RpmSpecParser;
+import org.computer.whunter.rpm.parser.RpmSpecProperties;
+import org.computer.whunter.rpm.parser.RpmTag;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+
+/**
+ * A command line tool that extracts the fields and macros of many spec files and writes them to standard output
+ * as they are parsed, either as newline delimited JSON or as CSV. The arguments are spec files and directories,
+ * which are searched for spec files. For example
+ * <pre>
+ *   java -jar rpm-spec-parser.jar --format csv --fields name,version,license SPECS
+ * </pre>
+ * The spec files are parsed in parallel but their records are written in the order the files were given and
+ * found, and only a few records per thread are held at any one time, so the memory used does not grow with
+ * the number of files. When <code>--fields</code> selects the fields, each spec file is only read until they
+ * have all been found.
+ * <p>
+ * The exit status is 0 if every spec file was parsed, 1 if any could not be and 2 if the arguments are wrong.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public final class RpmSpecExtractor {
+
+    static final int EXIT_OK = 0;
+    static final int EXIT_FAILED = 1;
+    static final int EXIT_USAGE = 2;
+
+    /** The dependency tags, which are commonly given many times so the whole preamble must be read to find them all */
+    private static final List<String> REPEATED_FIELDS = Arrays.asList(
+            RpmTag.REQUIRES.getKey(), RpmTag.BUILDREQUIRES.getKey(), RpmTag.PROVIDES.getKey());
+
+    private static final String USAGE = 
+            "Usage: rpm-spec-parser [options] <spec file or directory>...\n" +
+            "  --format json|csv     write newline delimited JSON (the default) or CSV\n" +
+            "  --fields a,b,...      only extract these fields or macros, reading each file until they are found\n" +
+            "  --threads n           parse n files at a time, the default is the number of processors\n" +
+            "  --glob pattern        select the files in directories, the default is *.spec\n" +
+            "  --define name=value   define a macro before each file is parsed, may be repeated\n" +
+            "  --macros file         load the macros defined in a file, may be repeated\n";
+
+    private final RecordWriter m_writer;
+    private final PrintStream m_err;
+    private int m_failures;
+
+    private RpmSpecExtractor(RecordWriter writer, PrintStream err) {
+        m_writer = writer;
+        m_err = err;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, Charset.forName("UTF-8")), 64 * 1024);
+        System.exit(run(args, out, System.err));
+    }
+
+    /**
+     * Run the tool.
+     *
+     * @param args the command line arguments.
+     * @param out receives the records, it is flushed but not closed.
+     * @param err receives the errors.
+     * @return the exit status.
+     * @throws IOException if the records could not be written.
+     */
+    static int run(String[] args, Writer out, PrintStream err) throws IOException {
+        String format = "json";
+        List<String> fields = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String glob = "*.spec";
+        Map<String, String> defines = new HashMap<String, String>();
+        List<Path> macroFiles = new ArrayList<Path>();
+        List<Path> specs = new ArrayList<Path>();
+        try {
+            for (int i = 0; i < args.length; ++i) {
+                String arg = args[i];
+                switch (arg) {
+                    case "--help":
+                    case "-h":
+                        err.print(USAGE);
+                        return EXIT_OK;
+                    case "--format":
+                        format = value(args, ++i);
+                        break;
+                    case "--fields":
+                        fields = new ArrayList<String>();
+                        for (String field : value(args, ++i).split(",")) {
+                            // Fields are lower case as they are parsed but macro names keep their case
+                            String key = field.trim();
+                            String lower = key.toLowerCase(Locale.ENGLISH);
+                            if (FieldCollector.isTag(lower)) {
+                                key = lower;
+                            }
+                            if (!key.isEmpty() && !fields.contains(key)) {
+                                fields.add(key);
+                            }
+                        }
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value(args, ++i));
+                        if (threads < 1) {
+                            throw new IllegalArgumentException("--threads must be at least 1");
+                        }
+                        break;
+                    case "--glob":
+                        glob = value(args, ++i);
+                        break;
+                    case "--define":
+                        String define = value(args, ++i);
+                        int equals = define.indexOf('=');
+                        if (equals < 1) {
+                            throw new IllegalArgumentException("--define needs name=value, not " + define);
+                        }
+                        defines.put(define.substring(0, equals), define.substring(equals + 1));
+                        break;
+                    case "--macros":
+                        macroFiles.add(Paths.get(value(args, ++i)));
+                        break;
+                    default:
+                        if (arg.startsWith("--")) {
+                            throw new IllegalArgumentException("Unknown option " + arg);
+                        }
+                        specs.add(Paths.get(arg));
+                }
+            }
+            if (specs.isEmpty()) {
+                throw new IllegalArgumentException("No spec files or directories were given");
+            }
+            if (fields != null && fields.isEmpty()) {
+                throw new IllegalArgumentException("--fields needs at least one field");
+            }
+        }
+        catch (IllegalArgumentException e) {
+            // NumberFormatException is one of these
+            err.println(e.getMessage());
+            err.print(USAGE);
+            return EXIT_USAGE;
+        }
+
+        RecordWriter writer = RecordWriter.create(format, out, fields);
+        if (writer == null) {
+            err.println("Unknown format " + format);
+            err.print(USAGE);
+            return EXIT_USAGE;
+        }
+        RpmSpecParser parser = RpmSpecParser.createParser();
+        if (!defines.isEmpty()) {
+            parser = parser.withDefines(defines);
+        }
+        if (!macroFiles.isEmpty()) {
+            try {
+                parser = parser.withMacros(MacroTable.load(macroFiles.toArray(new Path[macroFiles.size()])));
+            }
+            catch (IOException e) {
+                err.println("Failed to load macros: " + e);
+                return EXIT_USAGE;
+            }
+        }
+
+        // A single file has nothing to run in parallel with, so no threads are started for it
+        boolean single = specs.size() == 1 && !Files.isDirectory(specs.get(0));
+        RpmSpecBatchParser batchParser = RpmSpecBatchParser.createBatchParser(parser, single ? 1 : threads)
+                .withOrderedResults(true);
+        if (fields != null) {
+            batchParser = batchParser.withExtractor(new FieldExtractor(fields));
+        }
+        final RpmSpecExtractor extractor = new RpmSpecExtractor(writer, err);
+        try {
+            writer.start();
+            try (RpmSpecBatchParser.Batch batch = batchParser.startBatch(new RpmSpecBatchParser.Listener() {
+                @Override
+                public void parsed(RpmSpecParseResult result) {
+                    extractor.write(result);
+                }
+            })) {
+                for (Path spec : specs) {
+                    if (!Files.isDirectory(spec)) {
+                        batch.add(spec);
+                        continue;
+                    }
+                    try {
+                        batch.addTree(spec, glob);
+                    }
+                    catch (IOException e) {
+                        extractor.writeError(spec, e);
+                    }
+                }
+                batch.finish();
+            }
+        }
+        catch (WriteFailure e) {
+            throw e.getCause();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            err.println("Interrupted");
+            return EXIT_FAILED;
+        }
+        finally {
+            out.flush();
+        }
+        return extractor.m_failures == 0 ? EXIT_OK : EXIT_FAILED;
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException(args[i - 1] + " needs a value");
+        }
+        return args[i];
+    }
+
+    /** Write the record of a spec file, which is called on the thread that runs the tool */
+    private void write(RpmSpecParseResult result) {
+        try {
+            if (result.isSuccess()) {
+                m_writer.write(result.getPath().toString(), result.getSpecProperties());
+            } else {
+                writeError(result.getPath(), result.getError());
+            }
+        }
+        catch (IOException e) {
+            throw new WriteFailure(e);
+        }
+    }
+
+    private void writeError(Path specFile, Exception error) throws IOException {
+        ++m_failures;
+        String path = specFile.toString();
+        if (!m_writer.writeError(path, error.toString())) {
+            m_err.println(path + ": " + error);
+        }
+    }
+
+    /** Carries a failure to write a record out of the batch listener, which cannot throw an IOException */
+    private static final class WriteFailure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        WriteFailure(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+
+    /** Reads each spec file only until the selected fields and macros have been found */
+    private static final class FieldExtractor implements RpmSpecBatchParser.Extractor {
+        private final List<String> m_fields;
+
+        FieldExtractor(List<String> fields) {
+            m_fields = fields;
+        }
+
+        @Override
+        public RpmSpecProperties extract(RpmSpecParser parser, Path specFile) throws IOException {
+            FieldCollector collector = new FieldCollector(m_fields);
+            parser.parse(specFile, collector);
+            return RpmSpecProperties.copyOf(collector.m_values);
+        }
+    }
+
+    /**
+     * Collects the selected fields and macros of a spec file and stops the parse once they have all been found.
+     * Tags are only those of the main package, so the parse also stops at the first section if only tags are 
+     * selected, as no more can follow. The dependency tags are commonly given many times, so if any of them is
+     * selected the parse carries on to the end of the preamble. Each value is expanded using what came before it,
+     * as rpm does.
+     */
+    private static final class FieldCollector extends RpmSpecListenerAdapter {
+        private final ListMultimap<String, String> m_values = ArrayListMultimap.create();
+        private final List<String> m_fields;
+        private final boolean m_onlyTags;
+        private final boolean m_repeated;
+        private boolean m_inPreamble = true;
+
+        FieldCollector(List<String> fields) {
+            m_fields = fields;
+            boolean onlyTags = true;
+            boolean repeated = false;
+            for (String field : fields) {
+                onlyTags &= isTag(field);
+                repeated |= REPEATED_FIELDS.contains(field);
+            }
+            m_onlyTags = onlyTags;
+            m_repeated = repeated;
+        }
+
+        @Override
+        public boolean tag(String key, String value) {
+            if (m_inPreamble && m_fields.contains(key)) {
+                m_values.put(key, value);
+                return m_repeated || !isComplete();
+            }
+            return true;
+        }
+
+        @Override
+        public boolean macroDefinition(String name, String value) {
+            if (m_fields.contains(name)) {
+                // A later definition replaces an earlier one
+                m_values.replaceValues(name, Arrays.asList(value));
+                return (m_repeated && m_inPreamble) || !isComplete();
+            }
+            return true;
+        }
+
+        @Override
+        public boolean sectionStart(String section, String arguments) {
+            m_inPreamble = false;
+            return !m_onlyTags && !isComplete();
+        }
+
+        private boolean isComplete() {
+            return m_values.keySet().size() == m_fields.size();
+        }
+
+        static boolean isTag(String field) {
+            if (RpmTag.forKey(field) != null) {
+                return true;
+            }
+            if (!field.startsWith("source") || field.length() == "source".length()) {
+                return false;
+            }
+            for (int i = "source".length(); i < field.length(); ++i) {
+                if (field.charAt(i) < '0' || field.charAt(i) > '9') {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
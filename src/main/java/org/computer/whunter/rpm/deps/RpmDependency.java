@@ -0,0 +1,298 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.deps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * One entry of a <code>Requires</code>, <code>BuildRequires</code> or <code>Provides</code> tag, a name 
+ * optionally followed by a comparison operator and an <code>epoch:version-release</code>, for example
+ * <code>jdk >= 1.5</code>. A tag can hold several entries separated by commas or white space, which
+ * {@link #parseAll(String)} splits apart. A rich dependency such as <code>(foo or bar)</code> is kept 
+ * whole as the name of an unversioned entry.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public final class RpmDependency {
+
+    /** The comparison between the version of a dependency and the versions that satisfy it */
+    public enum Operator {
+        ANY(""),
+        LESS("<"),
+        LESS_OR_EQUAL("<="),
+        EQUAL("="),
+        GREATER_OR_EQUAL(">="),
+        GREATER(">");
+
+        private final String m_symbol;
+
+        private Operator(String symbol) {
+            m_symbol = symbol;
+        }
+
+        /** @return the operator as it is written in a spec file, empty for {@link #ANY}. */
+        public String getSymbol() {
+            return m_symbol;
+        }
+
+        /** @return true if a version that compares to the required version with the result is acceptable. */
+        boolean accepts(int comparison) {
+            switch (this) {
+                case LESS:             return comparison < 0;
+                case LESS_OR_EQUAL:    return comparison <= 0;
+                case EQUAL:            return comparison == 0;
+                case GREATER_OR_EQUAL: return comparison >= 0;
+                case GREATER:          return comparison > 0;
+                default:               return true;
+            }
+        }
+
+        /** @return the operator written as the symbol or null if it is not an operator. */
+        static Operator forSymbol(String symbol) {
+            switch (symbol) {
+                case "<":  return LESS;
+                case "<=": return LESS_OR_EQUAL;
+                case "=":
+                case "==": return EQUAL;
+                case ">=": return GREATER_OR_EQUAL;
+                case ">":  return GREATER;
+                default:   return null;
+            }
+        }
+    }
+
+    private final String m_name;
+    private final Operator m_operator;
+    private final String m_evr;
+
+    private RpmDependency(String name, Operator operator, String evr) {
+        m_name = name;
+        m_operator = operator;
+        m_evr = evr;
+    }
+
+    /**
+     * @param name the name of the capability.
+     * @return an entry that accepts any version of the capability.
+     */
+    public static RpmDependency of(String name) {
+        return new RpmDependency(name, Operator.ANY, null);
+    }
+
+    /**
+     * @param name the name of the capability.
+     * @param operator the comparison, which must not be {@link Operator#ANY}.
+     * @param evr the <code>epoch:version-release</code> to compare to, the epoch and release are optional.
+     * @return an entry that accepts the versions of the capability that compare to evr with the operator.
+     */
+    public static RpmDependency of(String name, Operator operator, String evr) {
+        if (operator == Operator.ANY || evr == null || evr.isEmpty()) {
+            throw new IllegalArgumentException("A versioned dependency needs an operator and a version");
+        }
+        return new RpmDependency(name, operator, evr);
+    }
+
+    /**
+     * Split the value of a dependency tag into its entries.
+     *
+     * @param value the expanded value of the tag, for example <code>perl >= 5.8, bash</code>.
+     * @return the entries in the order they are written, which is empty if there are none.
+     */
+    public static List<RpmDependency> parseAll(String value) {
+        List<RpmDependency> dependencies = new ArrayList<RpmDependency>(2);
+        int length = value.length();
+        int i = skipSeparators(value, 0);
+        while (i < length) {
+            int nameEnd = (value.charAt(i) == '(') ? richEnd(value, i) : tokenEnd(value, i, true);
+            if (nameEnd == i) {
+                // An operator without a name before it means nothing, skip it
+                while (i < length && isOperatorChar(value.charAt(i))) {
+                    ++i;
+                }
+                i = skipSeparators(value, i);
+                continue;
+            }
+            String name = value.substring(i, nameEnd);
+            i = skipSpaces(value, nameEnd);
+
+            // An operator may be written with or without spaces around it
+            int operatorEnd = i;
+            while (operatorEnd < length && isOperatorChar(value.charAt(operatorEnd))) {
+                ++operatorEnd;
+            }
+            Operator operator = (operatorEnd > i) ? Operator.forSymbol(value.substring(i, operatorEnd)) : null;
+            if (operator != null) {
+                int evrStart = skipSpaces(value, operatorEnd);
+                int evrEnd = tokenEnd(value, evrStart, false);
+                if (evrEnd > evrStart) {
+                    dependencies.add(new RpmDependency(name, operator, value.substring(evrStart, evrEnd)));
+                } else {
+                    // A dangling operator, the name is all there is
+                    dependencies.add(of(name));
+                }
+                i = evrEnd;
+            } else {
+                dependencies.add(of(name));
+                if (operatorEnd > i) {
+                    // Not an operator that rpm knows, skip it rather than taking it as a name
+                    i = operatorEnd;
+                }
+            }
+            i = skipSeparators(value, i);
+        }
+        return dependencies;
+    }
+
+    /**
+     * Split the values of all the occurrences of a dependency tag into their entries.
+     *
+     * @param values the expanded values of the tag.
+     * @return the entries of all the values in order.
+     */
+    public static List<RpmDependency> parseAll(Collection<String> values) {
+        List<RpmDependency> dependencies = new ArrayList<RpmDependency>(values.size() * 2);
+        for (String value : values) {
+            dependencies.addAll(parseAll(value));
+        }
+        return dependencies;
+    }
+
+    /** @return the name of the capability. */
+    public String getName() {
+        return m_name;
+    }
+
+    /** @return the comparison, {@link Operator#ANY} if the entry is not versioned. */
+    public Operator getOperator() {
+        return m_operator;
+    }
+
+    /** @return the <code>epoch:version-release</code> or null if the entry is not versioned. */
+    public String getEvr() {
+        return m_evr;
+    }
+
+    /** @return true if the entry has an operator and a version. */
+    public boolean isVersioned() {
+        return m_operator != Operator.ANY;
+    }
+
+    /**
+     * Decide whether a capability that is provided satisfies this entry as a requirement. The names must 
+     * be the same. An unversioned requirement is satisfied by any version and an unversioned provide 
+     * satisfies any requirement, as rpm does. Otherwise a provide of an exact version must compare to the 
+     * required version with the required operator. A provide of a range of versions is accepted, as ranges
+     * rarely appear in <code>Provides</code> and rpm's rules for overlapping them are not needed to order 
+     * a rebuild.
+     *
+     * @param provide the capability that is provided.
+     * @return true if the provide satisfies this requirement.
+     */
+    public boolean isSatisfiedBy(RpmDependency provide) {
+        if (!m_name.equals(provide.m_name)) {
+            return false;
+        }
+        if (!isVersioned() || !provide.isVersioned() || provide.m_operator != Operator.EQUAL) {
+            return true;
+        }
+        return m_operator.accepts(RpmVersionComparator.compareEvr(provide.m_evr, m_evr));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof RpmDependency)) {
+            return false;
+        }
+        RpmDependency that = (RpmDependency) other;
+        return m_name.equals(that.m_name) && m_operator == that.m_operator 
+                && (m_evr == null ? that.m_evr == null : m_evr.equals(that.m_evr));
+    }
+
+    @Override
+    public int hashCode() {
+        return (m_name.hashCode() * 31 + m_operator.hashCode()) * 31 + (m_evr == null ? 0 : m_evr.hashCode());
+    }
+
+    @Override
+    public String toString() {
+        return isVersioned() ? m_name + " " + m_operator.getSymbol() + " " + m_evr : m_name;
+    }
+
+    /** Find the end of a name or version, which stops at a separator and, for a name, at an operator */
+    private static int tokenEnd(String value, int start, boolean stopAtOperator) {
+        int end = start;
+        while (end < value.length()) {
+            char ch = value.charAt(end);
+            if (isSeparator(ch) || (stopAtOperator && isOperatorChar(ch))) {
+                break;
+            }
+            ++end;
+        }
+        return end;
+    }
+
+    /** Find the end of a rich dependency, just after the parenthesis that closes the one at start */
+    private static int richEnd(String value, int start) {
+        int depth = 0;
+        for (int i = start; i < value.length(); ++i) {
+            char ch = value.charAt(i);
+            if (ch == '(') {
+                ++depth;
+            } else if (ch == ')' && --depth == 0) {
+                return i + 1;
+            }
+        }
+        return value.length();
+    }
+
+    private static int skipSpaces(String value, int start) {
+        int i = start;
+        while (i < value.length() && Character.isWhitespace(value.charAt(i))) {
+            ++i;
+        }
+        return i;
+    }
+
+    private static int skipSeparators(String value, int start) {
+        int i = start;
+        while (i < value.length() && isSeparator(value.charAt(i))) {
+            ++i;
+        }
+        return i;
+    }
+
+    private static boolean isSeparator(char ch) {
+        return ch == ',' || Character.isWhitespace(ch);
+    }
+
+    private static boolean isOperatorChar(char ch) {
+        return ch == '<' || ch == '>' || ch == '=';
+    }
+}
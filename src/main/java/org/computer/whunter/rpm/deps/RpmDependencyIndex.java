@@ -0,0 +1,459 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.deps;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import org.computer.whunter.rpm.parser.RpmSpecDocument;
+import org.computer.whunter.rpm.parser.RpmSpecPackage;
+import org.computer.whunter.rpm.parser.RpmSpecProperties;
+import org.computer.whunter.rpm.parser.RpmTag;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * An index of the dependencies between the spec files of a corpus. It answers which spec files require or 
+ * build require a capability, which provide it, which depend on a spec file directly or through any chain 
+ * of dependencies, and the order in which to rebuild a set of spec files.
+ * <p>
+ * Each spec file provides the names of the packages it builds, at the version and release of the package,
+ * as well as the capabilities listed by its <code>Provides</code> tags. The requirements of every spec file
+ * are resolved to the spec files that provide them once, when the index is built, so the queries only walk
+ * arrays of the numbers given to the spec files in the order they were added. The results are in that 
+ * order too, which keeps them stable from run to run.
+ * <p>
+ * An index is immutable and thread safe. It is built by a {@link Builder}, which is not.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public final class RpmDependencyIndex {
+
+    /** A capability provided by a spec file */
+    private static final class Provide {
+        private final int m_spec;
+        private final RpmDependency m_dependency;
+
+        private Provide(int spec, RpmDependency dependency) {
+            m_spec = spec;
+            m_dependency = dependency;
+        }
+    }
+
+    /** The dependencies of a spec file as they were added to a builder */
+    private static final class Entry {
+        private final List<RpmDependency> m_provides = new ArrayList<RpmDependency>();
+        private final List<RpmDependency> m_requires = new ArrayList<RpmDependency>();
+        private final List<RpmDependency> m_buildRequires = new ArrayList<RpmDependency>();
+    }
+
+    /** Collects the spec files of a corpus and builds the index of their dependencies */
+    public static final class Builder {
+
+        private final Map<Path, Entry> m_entries = new LinkedHashMap<Path, Entry>();
+
+        private Builder() {
+        }
+
+        /**
+         * Add a spec file from the properties of its main package. The tags of any subpackages are not in 
+         * the properties, so parse the spec file into a document if they matter.
+         *
+         * @param spec the path of the spec file, which identifies it in the index.
+         * @param properties the properties of the spec file.
+         * @return this builder.
+         */
+        public Builder add(Path spec, RpmSpecProperties properties) {
+            Entry entry = newEntry(spec);
+            String name = properties.get(RpmTag.NAME);
+            if (name != null) {
+                entry.m_provides.add(packageProvide(name, properties.get(RpmTag.VERSION), properties.get(RpmTag.RELEASE)));
+            }
+            entry.m_provides.addAll(RpmDependency.parseAll(properties.getAll(RpmTag.PROVIDES)));
+            entry.m_requires.addAll(RpmDependency.parseAll(properties.getAll(RpmTag.REQUIRES)));
+            entry.m_buildRequires.addAll(RpmDependency.parseAll(properties.getAll(RpmTag.BUILDREQUIRES)));
+            return this;
+        }
+
+        /**
+         * Add a spec file with all the packages it builds.
+         *
+         * @param spec the path of the spec file, which identifies it in the index.
+         * @param document the spec file parsed into a document.
+         * @return this builder.
+         */
+        public Builder add(Path spec, RpmSpecDocument document) {
+            Entry entry = newEntry(spec);
+            RpmSpecPackage main = document.getMainPackage();
+            String version = main.getTag(RpmTag.VERSION.getKey());
+            String release = main.getTag(RpmTag.RELEASE.getKey());
+            for (RpmSpecPackage rpmPackage : document.getPackages()) {
+                // A subpackage has the version of the main package unless it gives its own
+                String packageVersion = rpmPackage.getTag(RpmTag.VERSION.getKey());
+                String packageRelease = rpmPackage.getTag(RpmTag.RELEASE.getKey());
+                if (rpmPackage.getName() != null) {
+                    entry.m_provides.add(packageProvide(rpmPackage.getName(), 
+                            packageVersion != null ? packageVersion : version, 
+                            packageRelease != null ? packageRelease : release));
+                }
+                entry.m_provides.addAll(RpmDependency.parseAll(rpmPackage.getTags().get(RpmTag.PROVIDES.getKey())));
+                entry.m_requires.addAll(RpmDependency.parseAll(rpmPackage.getTags().get(RpmTag.REQUIRES.getKey())));
+                // Build requirements belong to the spec file wherever they are written
+                entry.m_buildRequires.addAll(RpmDependency.parseAll(rpmPackage.getTags().get(RpmTag.BUILDREQUIRES.getKey())));
+            }
+            return this;
+        }
+
+        /** @return the index of the spec files added so far. */
+        public RpmDependencyIndex build() {
+            return new RpmDependencyIndex(m_entries);
+        }
+
+        private Entry newEntry(Path spec) {
+            if (m_entries.containsKey(spec)) {
+                throw new IllegalArgumentException("The spec file " + spec + " has already been added");
+            }
+            Entry entry = new Entry();
+            m_entries.put(spec, entry);
+            return entry;
+        }
+
+        private static RpmDependency packageProvide(String name, String version, String release) {
+            if (version == null) {
+                return RpmDependency.of(name);
+            }
+            return RpmDependency.of(name, RpmDependency.Operator.EQUAL, release == null ? version : version + "-" + release);
+        }
+    }
+
+    /** The spec files, numbered by their position */
+    private final ImmutableList<Path> m_specs;
+    private final Map<Path, Integer> m_numbers;
+
+    /** The capabilities provided, by name */
+    private final Map<String, List<Provide>> m_provides;
+
+    /** The spec files that require and build require each name */
+    private final Map<String, BitSet> m_requirers;
+    private final Map<String, BitSet> m_buildRequirers;
+
+    /** The spec files that provide the build requirements of each spec file */
+    private final int[][] m_buildDependencies;
+
+    /** The spec files that require or build require something provided by each spec file */
+    private final int[][] m_dependents;
+
+    private RpmDependencyIndex(Map<Path, Entry> entries) {
+        m_specs = ImmutableList.copyOf(entries.keySet());
+        m_numbers = new HashMap<Path, Integer>(m_specs.size() * 2);
+        m_provides = new HashMap<String, List<Provide>>();
+        m_requirers = new HashMap<String, BitSet>();
+        m_buildRequirers = new HashMap<String, BitSet>();
+
+        int spec = 0;
+        for (Entry entry : entries.values()) {
+            m_numbers.put(m_specs.get(spec), spec);
+            for (RpmDependency provide : entry.m_provides) {
+                List<Provide> providers = m_provides.get(provide.getName());
+                if (providers == null) {
+                    providers = new ArrayList<Provide>(1);
+                    m_provides.put(provide.getName(), providers);
+                }
+                providers.add(new Provide(spec, provide));
+            }
+            index(m_requirers, entry.m_requires, spec);
+            index(m_buildRequirers, entry.m_buildRequires, spec);
+            ++spec;
+        }
+
+        // Resolve every requirement to the spec files that satisfy it
+        BitSet[] dependents = new BitSet[m_specs.size()];
+        for (int i = 0; i < dependents.length; ++i) {
+            dependents[i] = new BitSet();
+        }
+        m_buildDependencies = new int[m_specs.size()][];
+        spec = 0;
+        for (Entry entry : entries.values()) {
+            BitSet buildDependencies = resolve(entry.m_buildRequires, spec);
+            BitSet runtimeDependencies = resolve(entry.m_requires, spec);
+            m_buildDependencies[spec] = toArray(buildDependencies);
+            runtimeDependencies.or(buildDependencies);
+            for (int provider = runtimeDependencies.nextSetBit(0); provider >= 0; provider = runtimeDependencies.nextSetBit(provider + 1)) {
+                dependents[provider].set(spec);
+            }
+            ++spec;
+        }
+        m_dependents = new int[m_specs.size()][];
+        for (int i = 0; i < dependents.length; ++i) {
+            m_dependents[i] = toArray(dependents[i]);
+        }
+    }
+
+    /** @return a builder of an index. */
+    public static Builder createBuilder() {
+        return new Builder();
+    }
+
+    /** @return the spec files in the index in the order they were added. */
+    public List<Path> getSpecs() {
+        return m_specs;
+    }
+
+    /**
+     * @param name the name of a capability.
+     * @return the spec files with a package that requires the capability at any version.
+     */
+    public Set<Path> getRequirers(String name) {
+        return toPaths(m_requirers.get(name));
+    }
+
+    /**
+     * @param name the name of a capability.
+     * @return the spec files that need the capability, at any version, to build.
+     */
+    public Set<Path> getBuildRequirers(String name) {
+        return toPaths(m_buildRequirers.get(name));
+    }
+
+    /**
+     * @param name the name of a capability.
+     * @return the spec files that provide the capability at any version.
+     */
+    public Set<Path> getProviders(String name) {
+        return getProviders(RpmDependency.of(name));
+    }
+
+    /**
+     * @param requirement a capability and the versions of it that are acceptable.
+     * @return the spec files that provide the capability at an acceptable version.
+     */
+    public Set<Path> getProviders(RpmDependency requirement) {
+        return toPaths(providers(requirement, -1));
+    }
+
+    /**
+     * @param spec a spec file in the index.
+     * @return the spec files that provide the build requirements of the spec file.
+     */
+    public Set<Path> getBuildDependencies(Path spec) {
+        return toPaths(m_buildDependencies[number(spec)]);
+    }
+
+    /**
+     * @param spec a spec file in the index.
+     * @return the spec files that require or build require a capability provided by the spec file.
+     */
+    public Set<Path> getDependents(Path spec) {
+        return toPaths(m_dependents[number(spec)]);
+    }
+
+    /**
+     * Find everything that depends on a spec file, directly or through other spec files, which is everything 
+     * that may have to be rebuilt when it changes.
+     *
+     * @param spec a spec file in the index.
+     * @return the spec files that depend on the spec file, not including the spec file itself.
+     */
+    public Set<Path> getReverseClosure(Path spec) {
+        return getReverseClosure(Collections.singleton(spec));
+    }
+
+    /**
+     * @param specs some spec files in the index.
+     * @return the spec files that depend on any of the spec files, not including the spec files themselves.
+     */
+    public Set<Path> getReverseClosure(Collection<Path> specs) {
+        BitSet start = numbers(specs);
+        BitSet reached = new BitSet(m_specs.size());
+        int[] queue = new int[m_specs.size()];
+        int head = 0;
+        int tail = 0;
+        for (int spec = start.nextSetBit(0); spec >= 0; spec = start.nextSetBit(spec + 1)) {
+            reached.set(spec);
+            queue[tail++] = spec;
+        }
+        while (head < tail) {
+            for (int dependent : m_dependents[queue[head++]]) {
+                if (!reached.get(dependent)) {
+                    reached.set(dependent);
+                    queue[tail++] = dependent;
+                }
+            }
+        }
+        reached.andNot(start);
+        return toPaths(reached);
+    }
+
+    /** @return all the spec files in the order to rebuild them, see {@link #getRebuildOrder(Collection)}. */
+    public List<Path> getRebuildOrder() {
+        return getRebuildOrder(m_specs);
+    }
+
+    /**
+     * Order some spec files so that each one comes after the spec files that provide its build requirements. 
+     * Only the build requirements between the given spec files are considered. When the build requirements 
+     * form a cycle the earliest spec file of the cycle is built first, as it would have to be bootstrapped 
+     * from packages that have already been built.
+     *
+     * @param specs some spec files in the index.
+     * @return the spec files in the order to rebuild them.
+     */
+    public List<Path> getRebuildOrder(Collection<Path> specs) {
+        BitSet selected = numbers(specs);
+        int[] waiting = new int[m_specs.size()];
+        for (int spec = selected.nextSetBit(0); spec >= 0; spec = selected.nextSetBit(spec + 1)) {
+            for (int dependency : m_buildDependencies[spec]) {
+                if (selected.get(dependency)) {
+                    ++waiting[spec];
+                }
+            }
+        }
+
+        // Kahn's algorithm, taking the earliest spec file that is ready each time so the order is stable
+        PriorityQueue<Integer> ready = new PriorityQueue<Integer>();
+        for (int spec = selected.nextSetBit(0); spec >= 0; spec = selected.nextSetBit(spec + 1)) {
+            if (waiting[spec] == 0) {
+                ready.add(spec);
+            }
+        }
+        BitSet remaining = (BitSet) selected.clone();
+        List<Path> order = new ArrayList<Path>(remaining.cardinality());
+        while (!remaining.isEmpty()) {
+            if (ready.isEmpty()) {
+                // Everything left is waiting on a cycle, break it
+                ready.add(remaining.nextSetBit(0));
+            }
+            int spec = ready.poll();
+            if (!remaining.get(spec)) {
+                continue;
+            }
+            remaining.clear(spec);
+            order.add(m_specs.get(spec));
+            for (int dependent : m_dependents[spec]) {
+                if (remaining.get(dependent) && isBuildDependency(dependent, spec) && --waiting[dependent] == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        return order;
+    }
+
+    /** The spec files whose provides satisfy a requirement, leaving out one spec file, or none if it is -1 */
+    private BitSet providers(RpmDependency requirement, int excluded) {
+        BitSet providers = new BitSet();
+        List<Provide> provides = m_provides.get(requirement.getName());
+        if (provides != null) {
+            for (Provide provide : provides) {
+                if (provide.m_spec != excluded && requirement.isSatisfiedBy(provide.m_dependency)) {
+                    providers.set(provide.m_spec);
+                }
+            }
+        }
+        return providers;
+    }
+
+    /** Resolve the requirements of a spec file, ignoring those it satisfies itself */
+    private BitSet resolve(List<RpmDependency> requirements, int spec) {
+        BitSet resolved = new BitSet();
+        for (RpmDependency requirement : requirements) {
+            resolved.or(providers(requirement, spec));
+        }
+        return resolved;
+    }
+
+    private boolean isBuildDependency(int spec, int dependency) {
+        for (int candidate : m_buildDependencies[spec]) {
+            if (candidate == dependency) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int number(Path spec) {
+        Integer number = m_numbers.get(spec);
+        if (number == null) {
+            throw new IllegalArgumentException("The spec file " + spec + " is not in the index");
+        }
+        return number;
+    }
+
+    private BitSet numbers(Collection<Path> specs) {
+        BitSet numbers = new BitSet(m_specs.size());
+        for (Path spec : specs) {
+            numbers.set(number(spec));
+        }
+        return numbers;
+    }
+
+    private Set<Path> toPaths(BitSet numbers) {
+        if (numbers == null || numbers.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<Path> paths = new LinkedHashSet<Path>(numbers.cardinality() * 2);
+        for (int spec = numbers.nextSetBit(0); spec >= 0; spec = numbers.nextSetBit(spec + 1)) {
+            paths.add(m_specs.get(spec));
+        }
+        return Collections.unmodifiableSet(paths);
+    }
+
+    private Set<Path> toPaths(int[] numbers) {
+        Set<Path> paths = new LinkedHashSet<Path>(numbers.length * 2);
+        for (int spec : numbers) {
+            paths.add(m_specs.get(spec));
+        }
+        return Collections.unmodifiableSet(paths);
+    }
+
+    private static void index(Map<String, BitSet> index, List<RpmDependency> requirements, int spec) {
+        for (RpmDependency requirement : requirements) {
+            BitSet specs = index.get(requirement.getName());
+            if (specs == null) {
+                specs = new BitSet();
+                index.put(requirement.getName(), specs);
+            }
+            specs.set(spec);
+        }
+    }
+
+    private static int[] toArray(BitSet numbers) {
+        int[] array = new int[numbers.cardinality()];
+        int i = 0;
+        for (int spec = numbers.nextSetBit(0); spec >= 0; spec = numbers.nextSetBit(spec + 1)) {
+            array[i++] = spec;
+        }
+        return array;
+    }
+}
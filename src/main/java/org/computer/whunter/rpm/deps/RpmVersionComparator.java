@@ -0,0 +1,202 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.deps;
+
+import java.util.Comparator;
+
+/**
+ * Compares versions the way rpm does. A version is split into runs of digits and runs of letters, and each 
+ * run is compared in turn, numerically if both are digits and alphabetically otherwise. A run of digits is 
+ * newer than a run of letters. Other characters only separate the runs, except that <code>~</code> sorts 
+ * before anything, including the end of the version, so <code>1.0~rc1</code> is older than <code>1.0</code>,
+ * and <code>^</code> sorts after the end of the version but before anything else.
+ * <p>
+ * {@link #compareEvr(String, String)} compares whole <code>epoch:version-release</code> strings.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public final class RpmVersionComparator implements Comparator<String> {
+
+    /** The shared instance, the comparator has no state */
+    public static final RpmVersionComparator INSTANCE = new RpmVersionComparator();
+
+    private RpmVersionComparator() {
+    }
+
+    @Override
+    public int compare(String left, String right) {
+        return compareVersions(left, right);
+    }
+
+    /**
+     * Compare two strings of the form <code>[epoch:]version[-release]</code>. A missing epoch is 0, and the 
+     * releases are only compared if both strings have one, so <code>1.0</code> matches <code>1.0-3</code>.
+     *
+     * @return a negative number, zero or a positive number as the left is older, the same or newer.
+     */
+    public static int compareEvr(String left, String right) {
+        String[] leftEvr = splitEvr(left);
+        String[] rightEvr = splitEvr(right);
+        int result = compareVersions(leftEvr[0], rightEvr[0]);
+        if (result == 0) {
+            result = compareVersions(leftEvr[1], rightEvr[1]);
+        }
+        if (result == 0 && leftEvr[2] != null && rightEvr[2] != null) {
+            result = compareVersions(leftEvr[2], rightEvr[2]);
+        }
+        return result;
+    }
+
+    /** Split an EVR into its epoch, version and release, the release being null if there is none */
+    private static String[] splitEvr(String evr) {
+        String epoch = "0";
+        int colon = evr.indexOf(':');
+        if (colon >= 0) {
+            epoch = evr.substring(0, colon);
+            evr = evr.substring(colon + 1);
+        }
+        int dash = evr.lastIndexOf('-');
+        if (dash < 0) {
+            return new String[] { epoch, evr, null };
+        }
+        return new String[] { epoch, evr.substring(0, dash), evr.substring(dash + 1) };
+    }
+
+    /** The algorithm of rpmvercmp */
+    private static int compareVersions(String left, String right) {
+        if (left.equals(right)) {
+            return 0;
+        }
+        int i = 0;
+        int j = 0;
+        while (i < left.length() || j < right.length()) {
+            // Skip the separators, but not the characters with a meaning of their own
+            while (i < left.length() && isSeparator(left.charAt(i))) {
+                ++i;
+            }
+            while (j < right.length() && isSeparator(right.charAt(j))) {
+                ++j;
+            }
+
+            // A tilde sorts before everything else
+            boolean leftTilde = i < left.length() && left.charAt(i) == '~';
+            boolean rightTilde = j < right.length() && right.charAt(j) == '~';
+            if (leftTilde || rightTilde) {
+                if (!leftTilde) {
+                    return 1;
+                }
+                if (!rightTilde) {
+                    return -1;
+                }
+                ++i;
+                ++j;
+                continue;
+            }
+
+            // A caret sorts after the end of a version, but before anything else
+            boolean leftCaret = i < left.length() && left.charAt(i) == '^';
+            boolean rightCaret = j < right.length() && right.charAt(j) == '^';
+            if (leftCaret || rightCaret) {
+                if (i == left.length()) {
+                    return -1;
+                }
+                if (j == right.length()) {
+                    return 1;
+                }
+                if (!leftCaret) {
+                    return 1;
+                }
+                if (!rightCaret) {
+                    return -1;
+                }
+                ++i;
+                ++j;
+                continue;
+            }
+
+            if (i == left.length() || j == right.length()) {
+                break;
+            }
+
+            boolean numeric = isDigit(left.charAt(i));
+            int leftEnd = segmentEnd(left, i, numeric);
+            int rightEnd = segmentEnd(right, j, numeric);
+            if (rightEnd == j) {
+                // The segments are of different types, digits are newer than letters
+                return numeric ? 1 : -1;
+            }
+            int result = numeric ? compareNumbers(left.substring(i, leftEnd), right.substring(j, rightEnd))
+                                 : left.substring(i, leftEnd).compareTo(right.substring(j, rightEnd));
+            if (result != 0) {
+                return result < 0 ? -1 : 1;
+            }
+            i = leftEnd;
+            j = rightEnd;
+        }
+        if (i == left.length() && j == right.length()) {
+            return 0;
+        }
+        // Whichever has more segments left is newer
+        return (i == left.length()) ? -1 : 1;
+    }
+
+    private static int segmentEnd(String version, int start, boolean numeric) {
+        int end = start;
+        while (end < version.length() && (numeric ? isDigit(version.charAt(end)) : isLetter(version.charAt(end)))) {
+            ++end;
+        }
+        return end;
+    }
+
+    /** Compare runs of digits numerically, however long they are */
+    private static int compareNumbers(String left, String right) {
+        left = stripLeadingZeros(left);
+        right = stripLeadingZeros(right);
+        if (left.length() != right.length()) {
+            return left.length() - right.length();
+        }
+        return left.compareTo(right);
+    }
+
+    private static String stripLeadingZeros(String digits) {
+        int start = 0;
+        while (start < digits.length() - 1 && digits.charAt(start) == '0') {
+            ++start;
+        }
+        return digits.substring(start);
+    }
+
+    private static boolean isSeparator(char ch) {
+        return !isDigit(ch) && !isLetter(ch) && ch != '~' && ch != '^';
+    }
+
+    private static boolean isDigit(char ch) {
+        return ch >= '0' && ch <= '9';
+    }
+
+    private static boolean isLetter(char ch) {
+        return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z');
+    }
+}
@@ -0,0 +1,281 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The lines of a spec file read through a {@link FileChannel}. Files larger than a threshold are memory 
+ * mapped, smaller files are read into a direct buffer taken from a pool that is shared by all threads. 
+ * The whole file is loaded when the source is opened and the channel is closed straight away, so no file
+ * handle is held while the lines are processed.
+ * <p>
+ * The lines are found by searching the bytes for line terminators and only the bytes of each line are 
+ * decoded, which is possible whenever the charset encodes carriage return and line feed as single bytes.
+ * Any other charset is decoded in one piece and split afterwards. Malformed input is replaced rather than
+ * failing the parse.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+final class ChannelLineSource implements SpecLineSource {
+
+    /** Files larger than this are memory mapped, this is also the size of the pooled buffers */
+    static final int MAP_THRESHOLD = 256 * 1024;
+
+    /** The number of idle buffers kept in the pool */
+    private static final int POOL_SIZE = 16;
+
+    private static final BlockingQueue<ByteBuffer> POOL = new ArrayBlockingQueue<ByteBuffer>(POOL_SIZE);
+
+    /** Whether each charset seen so far can be split into lines on bytes */
+    private static final ConcurrentMap<Charset, Boolean> ASCII_LINE_TERMINATED = new ConcurrentHashMap<Charset, Boolean>();
+
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    /** The contents of the file, between the current position and the limit are still to be read */
+    private final ByteBuffer m_bytes;
+
+    /** True if m_bytes came from the pool and must be returned to it */
+    private final boolean m_pooled;
+
+    /** Decodes each line, or null if the whole file was decoded into m_text */
+    private final CharsetDecoder m_decoder;
+
+    /** The text of the whole file when the charset cannot be split on bytes */
+    private final CharBuffer m_text;
+
+    /** Reused to hold the characters of each line as it is decoded */
+    private CharBuffer m_line = CharBuffer.allocate(256);
+
+    private final long m_size;
+
+    private boolean m_closed;
+
+    private boolean m_released;
+
+    private ChannelLineSource(ByteBuffer bytes, boolean pooled, Charset charset, long size) throws CharacterCodingException {
+        m_bytes = bytes;
+        m_pooled = pooled;
+        m_size = size;
+        CharsetDecoder decoder = charset.newDecoder()
+                                        .onMalformedInput(CodingErrorAction.REPLACE)
+                                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        if (isAsciiLineTerminated(charset)) {
+            m_decoder = decoder;
+            m_text = null;
+        } else {
+            m_decoder = null;
+            m_text = decoder.decode(bytes);
+            release();
+        }
+    }
+
+    /**
+     * Open a spec file and load its contents.
+     *
+     * @param path the path of the spec file.
+     * @param charset the charset of the spec file.
+     * @return the lines of the spec file, which must be closed to return any pooled buffer.
+     * @throws IOException if the spec file could not be read.
+     */
+    static ChannelLineSource open(Path path, Charset charset) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > MAP_THRESHOLD) {
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("Spec file is too large: " + path);
+                }
+                return new ChannelLineSource(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), false, charset, size);
+            }
+            ByteBuffer buffer = POOL.poll();
+            if (buffer == null) {
+                buffer = ByteBuffer.allocateDirect(MAP_THRESHOLD);
+            }
+            boolean loaded = false;
+            try {
+                buffer.clear().limit((int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // Keep reading until the buffer is full or the file is shorter than it was
+                }
+                buffer.flip();
+                ChannelLineSource source = new ChannelLineSource(buffer, true, charset, size);
+                loaded = true;
+                return source;
+            }
+            finally {
+                if (!loaded) {
+                    POOL.offer(buffer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the lines of the contents of a spec file that are already in memory.
+     *
+     * @param contents the bytes of the spec file, from the position to the limit.
+     * @param charset the charset of the spec file.
+     * @return the lines of the spec file.
+     * @throws IOException if the contents could not be decoded.
+     */
+    static ChannelLineSource wrap(ByteBuffer contents, Charset charset) throws IOException {
+        return new ChannelLineSource(contents.duplicate(), false, charset, contents.remaining());
+    }
+
+    @Override
+    public long getSize() {
+        return m_size;
+    }
+
+    @Override
+    public String readLine() throws IOException {
+        if (m_closed) {
+            throw new IOException("Spec file has been closed");
+        }
+        return (m_text != null) ? readTextLine() : readByteLine();
+    }
+
+    /** Find the next line in the bytes and decode it */
+    private String readByteLine() {
+        ByteBuffer bytes = m_bytes;
+        int start = bytes.position();
+        int limit = bytes.limit();
+        if (start == limit) {
+            return null;
+        }
+        int end = start;
+        while (end < limit) {
+            byte b = bytes.get(end);
+            if (b == LF || b == CR) {
+                break;
+            }
+            ++end;
+        }
+        int next = end + 1;
+        if (end < limit && bytes.get(end) == CR && next < limit && bytes.get(next) == LF) {
+            ++next;
+        }
+        bytes.position(Math.min(next, limit));
+        return decode(bytes, start, end);
+    }
+
+    private String decode(ByteBuffer bytes, int start, int end) {
+        if (start == end) {
+            return "";
+        }
+        ByteBuffer slice = bytes.duplicate();
+        slice.limit(end).position(start);
+        int required = (int) Math.ceil((end - start) * (double) m_decoder.maxCharsPerByte());
+        if (m_line.capacity() < required) {
+            m_line = CharBuffer.allocate(Math.max(required, m_line.capacity() * 2));
+        }
+        m_line.clear();
+        m_decoder.reset();
+        CoderResult result = m_decoder.decode(slice, m_line, true);
+        if (result.isUnderflow()) {
+            m_decoder.flush(m_line);
+        }
+        m_line.flip();
+        return m_line.toString();
+    }
+
+    /** Find the next line in text that was decoded in one piece */
+    private String readTextLine() {
+        CharBuffer text = m_text;
+        int start = text.position();
+        int limit = text.limit();
+        if (start == limit) {
+            return null;
+        }
+        int end = start;
+        while (end < limit) {
+            char ch = text.get(end);
+            if (ch == '\n' || ch == '\r') {
+                break;
+            }
+            ++end;
+        }
+        int next = end + 1;
+        if (end < limit && text.get(end) == '\r' && next < limit && text.get(next) == '\n') {
+            ++next;
+        }
+        text.position(Math.min(next, limit));
+        return text.duplicate().limit(end).position(start).toString();
+    }
+
+    @Override
+    public void close() {
+        if (!m_closed) {
+            m_closed = true;
+            release();
+        }
+    }
+
+    /** Return a pooled buffer so that it can be used for another file */
+    private void release() {
+        if (m_pooled && !m_released) {
+            m_released = true;
+            m_bytes.clear().limit(0);
+            POOL.offer(m_bytes);
+        }
+    }
+
+    /** @return true if the charset encodes carriage return and line feed as the single ASCII bytes */
+    private static boolean isAsciiLineTerminated(Charset charset) {
+        Boolean known = ASCII_LINE_TERMINATED.get(charset);
+        if (known != null) {
+            return known;
+        }
+        boolean ascii = false;
+        if (charset.canEncode()) {
+            try {
+                CharsetEncoder encoder = charset.newEncoder();
+                ByteBuffer encoded = encoder.encode(CharBuffer.wrap("\r\n"));
+                ascii = encoded.remaining() == 2 && encoded.get(0) == CR && encoded.get(1) == LF;
+            }
+            catch (CharacterCodingException e) {
+                ascii = false;
+            }
+        }
+        ASCII_LINE_TERMINATED.put(charset, ascii);
+        return ascii;
+    }
+}
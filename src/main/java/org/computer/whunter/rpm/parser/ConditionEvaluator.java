@@ -0,0 +1,265 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+/**
+ * Evaluates the expression of an <code>%if</code> once its macros have been expanded. The grammar is the one 
+ * used by rpm, from the lowest precedence to the highest:
+ * <ul>
+ * <li><code>||</code> and <code>&amp;&amp;</code></li>
+ * <li><code>== != &lt; &lt;= &gt; &gt;=</code>, which compare numbers numerically and anything else as strings</li>
+ * <li><code>+ -</code>, where <code>+</code> also joins strings</li>
+ * <li><code>* /</code></li>
+ * <li><code>!</code> and unary <code>-</code></li>
+ * <li>integers, strings in double quotes and expressions in parentheses</li>
+ * </ul>
+ * A number is true if it is not zero and a string is true if it is not empty. A reference to a macro that could 
+ * not be expanded counts as 0, as the macro is not defined as far as the parser knows. An expression that cannot 
+ * be evaluated is false, rather than failing the whole parse the way rpm would.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+final class ConditionEvaluator {
+
+    private final String m_text;
+    private int m_position;
+
+    private ConditionEvaluator(String text) {
+        m_text = text;
+    }
+
+    /**
+     * @param expression the expression with its macros expanded.
+     * @return the value of the expression, or false if it is malformed.
+     */
+    static boolean evaluate(String expression) {
+        ConditionEvaluator evaluator = new ConditionEvaluator(expression);
+        try {
+            Object value = evaluator.parseOr();
+            evaluator.skipSpace();
+            return evaluator.m_position == expression.length() && isTrue(value);
+        }
+        catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private Object parseOr() {
+        Object left = parseAnd();
+        while (match("||")) {
+            Object right = parseAnd();
+            left = toNumber(isTrue(left) || isTrue(right));
+        }
+        return left;
+    }
+
+    private Object parseAnd() {
+        Object left = parseComparison();
+        while (match("&&")) {
+            Object right = parseComparison();
+            left = toNumber(isTrue(left) && isTrue(right));
+        }
+        return left;
+    }
+
+    private Object parseComparison() {
+        Object left = parseAdditive();
+        for (String operator : new String[] { "==", "!=", "<=", ">=", "<", ">" }) {
+            if (match(operator)) {
+                int comparison = compare(left, parseAdditive());
+                switch (operator) {
+                case "==": return toNumber(comparison == 0);
+                case "!=": return toNumber(comparison != 0);
+                case "<=": return toNumber(comparison <= 0);
+                case ">=": return toNumber(comparison >= 0);
+                case "<":  return toNumber(comparison < 0);
+                default:   return toNumber(comparison > 0);
+                }
+            }
+        }
+        return left;
+    }
+
+    private Object parseAdditive() {
+        Object left = parseMultiplicative();
+        while (true) {
+            if (match("+")) {
+                Object right = parseMultiplicative();
+                if (left instanceof Long && right instanceof Long) {
+                    left = (Long) left + (Long) right;
+                } else {
+                    left = left.toString() + right.toString();
+                }
+            } else if (match("-")) {
+                left = number(left) - number(parseMultiplicative());
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Object parseMultiplicative() {
+        Object left = parseUnary();
+        while (true) {
+            if (match("*")) {
+                left = number(left) * number(parseUnary());
+            } else if (match("/")) {
+                long divisor = number(parseUnary());
+                if (divisor == 0) {
+                    throw new IllegalArgumentException("Division by zero");
+                }
+                left = number(left) / divisor;
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Object parseUnary() {
+        if (match("!")) {
+            return toNumber(!isTrue(parseUnary()));
+        }
+        if (match("-")) {
+            return -number(parseUnary());
+        }
+        return parsePrimary();
+    }
+
+    private Object parsePrimary() {
+        skipSpace();
+        if (m_position == m_text.length()) {
+            throw new IllegalArgumentException("Missing operand");
+        }
+        char ch = m_text.charAt(m_position);
+        if (ch == '(') {
+            ++m_position;
+            Object value = parseOr();
+            if (!match(")")) {
+                throw new IllegalArgumentException("Missing )");
+            }
+            return value;
+        }
+        if (ch == '"') {
+            int close = m_text.indexOf('"', m_position + 1);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unterminated string");
+            }
+            String value = m_text.substring(m_position + 1, close);
+            m_position = close + 1;
+            return value;
+        }
+        if (ch == '%') {
+            skipReference();
+            return Long.valueOf(0);
+        }
+        int start = m_position;
+        if (ch >= '0' && ch <= '9') {
+            while (m_position < m_text.length() && Character.isDigit(m_text.charAt(m_position))) {
+                ++m_position;
+            }
+            return Long.valueOf(m_text.substring(start, m_position));
+        }
+        while (m_position < m_text.length() && isWordPart(m_text.charAt(m_position))) {
+            ++m_position;
+        }
+        if (m_position == start) {
+            throw new IllegalArgumentException("Unexpected " + ch);
+        }
+        return m_text.substring(start, m_position);
+    }
+
+    /** Skip over a macro reference that was left unexpanded */
+    private void skipReference() {
+        ++m_position;
+        if (m_position < m_text.length() && m_text.charAt(m_position) == '{') {
+            int depth = 0;
+            for (; m_position < m_text.length(); ++m_position) {
+                char ch = m_text.charAt(m_position);
+                if (ch == '{') {
+                    ++depth;
+                } else if (ch == '}' && --depth == 0) {
+                    ++m_position;
+                    return;
+                }
+            }
+            throw new IllegalArgumentException("Unterminated reference");
+        }
+        while (m_position < m_text.length() && isWordPart(m_text.charAt(m_position))) {
+            ++m_position;
+        }
+    }
+
+    /** Consume an operator if it comes next, but not the first character of a longer operator */
+    private boolean match(String operator) {
+        skipSpace();
+        if (!m_text.startsWith(operator, m_position)) {
+            return false;
+        }
+        if (operator.length() == 1 && m_position + 1 < m_text.length()) {
+            char next = m_text.charAt(m_position + 1);
+            if ((next == '=' && "!<>".indexOf(operator.charAt(0)) >= 0) 
+                || (next == operator.charAt(0) && "|&".indexOf(next) >= 0)) {
+                return false;
+            }
+        }
+        m_position += operator.length();
+        return true;
+    }
+
+    private void skipSpace() {
+        while (m_position < m_text.length() && Character.isWhitespace(m_text.charAt(m_position))) {
+            ++m_position;
+        }
+    }
+
+    private static int compare(Object left, Object right) {
+        if (left instanceof Long && right instanceof Long) {
+            return ((Long) left).compareTo((Long) right);
+        }
+        return left.toString().compareTo(right.toString());
+    }
+
+    private static boolean isTrue(Object value) {
+        if (value instanceof Long) {
+            return (Long) value != 0;
+        }
+        return !value.toString().isEmpty();
+    }
+
+    private static long number(Object value) {
+        if (value instanceof Long) {
+            return (Long) value;
+        }
+        throw new IllegalArgumentException("Not a number: " + value);
+    }
+
+    private static Long toNumber(boolean value) {
+        return value ? 1L : 0L;
+    }
+
+    private static boolean isWordPart(char ch) {
+        return Character.isLetterOrDigit(ch) || ch == '_' || ch == '.';
+    }
+}
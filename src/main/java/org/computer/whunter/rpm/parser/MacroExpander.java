@@ -0,0 +1,241 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Expands the references to macros and fields inside a value. The value is scanned once from left
+ * to right and the following forms are recognised.
+ * <ul>
+ * <li><code>%{name}</code> and <code>%name</code> expand to the value of name.</li>
+ * <li><code>%{?name}</code> expands to the value of name, or nothing if it is not defined.</li>
+ * <li><code>%{?name:text}</code> expands to text if name is defined, otherwise nothing.</li>
+ * <li><code>%{!?name:text}</code> expands to text if name is not defined, otherwise nothing.</li>
+ * <li><code>%%</code> expands to a single %.</li>
+ * </ul>
+ * The values of the symbols are themselves expanded, to any depth, and remembered so each one is
+ * only expanded once. References to undefined symbols, and references that would recurse into a
+ * symbol that is already being expanded, are left in the text as they were written.
+ * <p>
+ * An expander is not thread safe, it is intended to be used for the duration of a single parse.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+final class MacroExpander {
+
+    /** The source of the unexpanded values of the macros and fields that can be referenced */
+    interface Symbols {
+        /**
+         * @param name the name of the macro or field.
+         * @return the unexpanded value or null if the name is not defined.
+         */
+        String valueOf(String name);
+    }
+
+    private final Symbols m_symbols;
+
+    /** The expanded values of the symbols that have already been resolved */
+    private final Map<String, String> m_expanded = new HashMap<String, String>();
+
+    /** The symbols being expanded at the moment, used to detect cycles */
+    private final Set<String> m_expanding = new HashSet<String>();
+
+    /** The number of references that have been expanded */
+    private int m_steps;
+
+    MacroExpander(Symbols symbols) {
+        m_symbols = symbols;
+    }
+
+    /**
+     * Expand all the references in some text.
+     *
+     * @param text the text to expand.
+     * @return the text with the references replaced by their values.
+     */
+    String expand(String text) {
+        int percent = text.indexOf('%');
+        if (percent < 0) {
+            return text;
+        }
+        StringBuilder result = new StringBuilder(text.length() + 16);
+        result.append(text, 0, percent);
+        expandInto(text, percent, result);
+        return result.toString();
+    }
+
+    /**
+     * Resolve the fully expanded value of a macro or field.
+     *
+     * @param name the name of the macro or field.
+     * @return the expanded value or null if the name is not defined or its value refers back to itself.
+     */
+    String resolve(String name) {
+        String expanded = m_expanded.get(name);
+        if (expanded != null) {
+            return expanded;
+        }
+        if (m_expanding.contains(name)) {
+            return null;
+        }
+        String value = m_symbols.valueOf(name);
+        if (value == null) {
+            return null;
+        }
+        m_expanding.add(name);
+        try {
+            expanded = expand(value);
+        }
+        finally {
+            m_expanding.remove(name);
+        }
+        m_expanded.put(name, expanded);
+        return expanded;
+    }
+
+    /** @return the number of references that have been expanded, including those inside the values of symbols. */
+    int getSteps() {
+        return m_steps;
+    }
+
+    /** 
+     * Forget the expanded values that have been remembered, which must be done whenever a symbol is defined
+     * or redefined as any of them could refer to it.
+     */
+    void invalidate() {
+        m_expanded.clear();
+    }
+
+    /** Expand the text from a position onwards, appending it to the result */
+    private void expandInto(String text, int start, StringBuilder result) {
+        int length = text.length();
+        int i = start;
+        while (i < length) {
+            char ch = text.charAt(i);
+            if (ch != '%' || i + 1 == length) {
+                result.append(ch);
+                ++i;
+                continue;
+            }
+            char next = text.charAt(i + 1);
+            if (next == '%') {
+                result.append('%');
+                i += 2;
+            } else if (next == '{') {
+                int close = findClosingBrace(text, i + 2);
+                if (close < 0) {
+                    // Unterminated, the rest of the text is literal
+                    result.append(text, i, length);
+                    return;
+                }
+                ++m_steps;
+                expandBraced(text, i, close, result);
+                i = close + 1;
+            } else if (isNameStart(next)) {
+                int end = i + 2;
+                while (end < length && isNamePart(text.charAt(end))) {
+                    ++end;
+                }
+                ++m_steps;
+                String value = resolve(text.substring(i + 1, end));
+                if (value != null) {
+                    result.append(value);
+                } else {
+                    result.append(text, i, end);
+                }
+                i = end;
+            } else {
+                result.append(ch);
+                ++i;
+            }
+        }
+    }
+
+    /** Expand a reference of the form %{...} that starts at open and ends at close */
+    private void expandBraced(String text, int open, int close, StringBuilder result) {
+        int bodyStart = open + 2;
+        boolean negate = text.startsWith("!?", bodyStart);
+        boolean conditional = negate || text.startsWith("?", bodyStart);
+        if (!conditional) {
+            String value = resolve(text.substring(bodyStart, close));
+            if (value != null) {
+                result.append(value);
+            } else {
+                result.append(text, open, close + 1);
+            }
+            return;
+        }
+
+        int nameStart = bodyStart + (negate ? 2 : 1);
+        int colon = text.indexOf(':', nameStart);
+        int nameEnd = (colon >= 0 && colon < close) ? colon : close;
+        String name = text.substring(nameStart, nameEnd);
+        boolean defined = isDefined(name);
+        if (nameEnd == close) {
+            // %{?name} is the value or nothing, %{!?name} is always nothing
+            if (defined && !negate) {
+                String value = resolve(name);
+                if (value != null) {
+                    result.append(value);
+                }
+            }
+        } else if (defined != negate) {
+            expandInto(text.substring(nameEnd + 1, close), 0, result);
+        }
+    }
+
+    private boolean isDefined(String name) {
+        return m_expanded.containsKey(name) || m_symbols.valueOf(name) != null;
+    }
+
+    /** Find the brace that closes a reference, allowing for nested references in its body */
+    private static int findClosingBrace(String text, int from) {
+        int depth = 0;
+        for (int i = from; i < text.length(); ++i) {
+            char ch = text.charAt(i);
+            if (ch == '{') {
+                ++depth;
+            } else if (ch == '}') {
+                if (depth == 0) {
+                    return i;
+                }
+                --depth;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isNameStart(char ch) {
+        return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || ch == '_';
+    }
+
+    private static boolean isNamePart(char ch) {
+        return isNameStart(ch) || (ch >= '0' && ch <= '9');
+    }
+}
@@ -0,0 +1,276 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.CharStreams;
+
+/**
+ * An immutable table of system macros, such as <code>%{_prefix}</code> and <code>%{_libdir}</code>, loaded from 
+ * files in the format of <code>/usr/lib/rpm/macros</code>. The files are read and their definitions joined and 
+ * checked once, so a table can be shared by a parser and every parse made with it. A parse never changes 
+ * the table, the macros that a spec file defines or undefines are layered over it for that parse only.
+ * <p>
+ * Each definition in a file starts with <code>%name</code> followed by white space and the body. A body is 
+ * continued onto the next line when a line ends with a backslash or has an unclosed brace. Lines that do 
+ * not start with % are comments. Macros that take arguments, such as <code>%name(a:b)</code>, are left out
+ * as the parser cannot pass them any. <code>%undefine name</code> removes a macro defined by an earlier 
+ * line or file, and <code>%define</code> and <code>%global</code> lines are read as definitions.
+ * <p>
+ * Adding macros to a table creates a new table with a copy of the definitions, leaving the original as it was.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public final class MacroTable {
+
+    /** A table without any macros */
+    public static final MacroTable EMPTY = new MacroTable(ImmutableMap.<String, String>of());
+
+    private final ImmutableMap<String, String> m_macros;
+
+    /** A hash of the definitions, computed the first time it is needed */
+    private volatile String m_fingerprint;
+
+    private MacroTable(ImmutableMap<String, String> macros) {
+        m_macros = macros;
+    }
+
+    /**
+     * Load macro files in order, so a macro defined by a later file replaces one from an earlier file.
+     *
+     * @param files the paths of the macro files, which are decoded as UTF-8.
+     * @return a table of the macros.
+     * @throws IOException if a file could not be read.
+     */
+    public static MacroTable load(Path... files) throws IOException {
+        return EMPTY.withFiles(Arrays.asList(files), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Create a table with the macros of this one and those of some macro files.
+     *
+     * @param files the paths of the macro files, in the order that they are to be read.
+     * @param charset the charset of the files.
+     * @return a new table, the macros of the files replace those of this table with the same names.
+     * @throws IOException if a file could not be read.
+     */
+    public MacroTable withFiles(Collection<Path> files, Charset charset) throws IOException {
+        Map<String, String> macros = new LinkedHashMap<String, String>(m_macros);
+        for (Path file : files) {
+            read(new String(Files.readAllBytes(file), charset), macros);
+        }
+        return new MacroTable(ImmutableMap.copyOf(macros));
+    }
+
+    /**
+     * Create a table with the macros of this one and those of a macro file that has been opened already. 
+     * The reader is not closed.
+     *
+     * @param reader the text of the macro file.
+     * @return a new table, the macros of the file replace those of this table with the same names.
+     * @throws IOException if the text could not be read.
+     */
+    public MacroTable withFile(Reader reader) throws IOException {
+        Map<String, String> macros = new LinkedHashMap<String, String>(m_macros);
+        read(CharStreams.toString(reader), macros);
+        return new MacroTable(ImmutableMap.copyOf(macros));
+    }
+
+    /**
+     * Create a table with the macros of this one and some more.
+     *
+     * @param macros the names and bodies of the macros.
+     * @return a new table, the macros given replace those of this table with the same names.
+     */
+    public MacroTable withMacros(Map<String, String> macros) {
+        Map<String, String> merged = new LinkedHashMap<String, String>(m_macros);
+        merged.putAll(macros);
+        return new MacroTable(ImmutableMap.copyOf(merged));
+    }
+
+    /**
+     * @param name the name of a macro.
+     * @return the unexpanded body of the macro or null if the table does not define it.
+     */
+    public String get(String name) {
+        return m_macros.get(name);
+    }
+
+    /** @return the names of the macros in the order they were first defined. */
+    public Set<String> getNames() {
+        return m_macros.keySet();
+    }
+
+    /** @return the number of macros. */
+    public int size() {
+        return m_macros.size();
+    }
+
+    /** @return the macros as a map of their names to their unexpanded bodies. */
+    public Map<String, String> asMap() {
+        return m_macros;
+    }
+
+    /** @return a hash of the definitions that only changes if they do, whatever order they were defined in. */
+    String getFingerprint() {
+        String fingerprint = m_fingerprint;
+        if (fingerprint == null) {
+            Hasher hasher = Hashing.murmur3_128().newHasher();
+            for (Map.Entry<String, String> entry : new TreeMap<String, String>(m_macros).entrySet()) {
+                hasher.putString(entry.getKey()).putChar('\0').putString(entry.getValue()).putChar('\0');
+            }
+            fingerprint = hasher.hash().toString();
+            m_fingerprint = fingerprint;
+        }
+        return fingerprint;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || (other instanceof MacroTable && m_macros.equals(((MacroTable) other).m_macros));
+    }
+
+    @Override
+    public int hashCode() {
+        return m_macros.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return m_macros.size() + " macros";
+    }
+
+    /** 
+     * Read the definitions of a macro file into a map. As rpm does, a definition carries on past the end of a 
+     * line that ends with a backslash, or while a <code>%{</code> or <code>%(</code> is still open. Braces and
+     * parentheses only count once a macro has opened one, so a stray brace in a comment or a lua body does 
+     * not join the lines that follow it.
+     */
+    static void read(String text, Map<String, String> macros) {
+        int length = text.length();
+        int start = 0;
+        while (start < length) {
+            // Join the physical lines of the definition into one logical line
+            StringBuilder definition = new StringBuilder();
+            int braces = 0;
+            int parentheses = 0;
+            int end = start;
+            while (end < length) {
+                char ch = text.charAt(end);
+                if (ch == '\n') {
+                    // Carriage returns are never appended, so this also sees a backslash before a CRLF
+                    int last = definition.length() - 1;
+                    if (last >= 0 && definition.charAt(last) == '\\') {
+                        // A continuation, the backslash is replaced by the new line
+                        definition.setCharAt(last, '\n');
+                    } else if (braces > 0 || parentheses > 0) {
+                        definition.append('\n');
+                    } else {
+                        break;
+                    }
+                } else if (ch == '%' && end + 1 < length && "{(%".indexOf(text.charAt(end + 1)) >= 0) {
+                    char next = text.charAt(end + 1);
+                    if (next == '{') {
+                        ++braces;
+                    } else if (next == '(') {
+                        ++parentheses;
+                    }
+                    definition.append(ch).append(next);
+                    ++end;
+                } else if (ch != '\r') {
+                    if (ch == '{' && braces > 0) {
+                        ++braces;
+                    } else if (ch == '}' && braces > 0) {
+                        --braces;
+                    } else if (ch == '(' && parentheses > 0) {
+                        ++parentheses;
+                    } else if (ch == ')' && parentheses > 0) {
+                        --parentheses;
+                    }
+                    definition.append(ch);
+                }
+                ++end;
+            }
+            define(definition.toString().trim(), macros);
+            start = end + 1;
+        }
+    }
+
+    /** Apply one logical line of a macro file */
+    private static void define(String line, Map<String, String> macros) {
+        if (!line.startsWith("%")) {
+            // Comments and blank lines
+            return;
+        }
+        int nameEnd = nameEnd(line, 1);
+        String name = line.substring(1, nameEnd);
+        if (name.isEmpty() || (nameEnd < line.length() && !Character.isWhitespace(line.charAt(nameEnd)))) {
+            // Not a definition, or a macro with arguments
+            return;
+        }
+        String body = line.substring(nameEnd).trim();
+        if (body.isEmpty()) {
+            return;
+        }
+        switch (name) {
+            case "undefine":
+                macros.remove(body.substring(0, nameEnd(body, 0)));
+                return;
+            case "define":
+            case "global":
+                define("%" + body, macros);
+                return;
+            default:
+                macros.put(name, body);
+        }
+    }
+
+    private static int nameEnd(String text, int start) {
+        int end = start;
+        while (end < text.length()) {
+            char ch = text.charAt(end);
+            if (!((ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9') || ch == '_')) {
+                break;
+            }
+            ++end;
+        }
+        return end;
+    }
+}
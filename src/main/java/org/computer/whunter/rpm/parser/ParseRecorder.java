@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+import java.io.IOException;
+
+/**
+ * Records the metrics of one parse. It sits between the parser and the handler that collects the results,
+ * counting what passes through. The lines are timed as a whole rather than one by one, as the clock would
+ * cost as much as a short line. It is only used by a parser that has a monitor, so a parser without one 
+ * does no timing or counting at all.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+final class ParseRecorder implements SpecLineHandler {
+
+    private final SpecLineHandler m_handler;
+    private long m_readNanos;
+    private long m_classifyNanos;
+    private long m_expandNanos;
+    private int m_lines;
+    private int m_tags;
+    private int m_macros;
+    private int m_expansions;
+
+    /**
+     * @param handler receives what is classified.
+     * @param loadNanos the time taken to load the spec file before its lines are read.
+     */
+    ParseRecorder(SpecLineHandler handler, long loadNanos) {
+        m_handler = handler;
+        m_readNanos = loadNanos;
+    }
+
+    /** Read and classify each line, stopping early if the handler asks to */
+    void classify(RpmSpecParser parser, SpecLineSource lines, RpmSpecParser.Position position) throws IOException {
+        long start = System.nanoTime();
+        try {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (!parser.classifyLine(line, position, this)) {
+                    return;
+                }
+            }
+        }
+        finally {
+            m_classifyNanos += System.nanoTime() - start;
+        }
+    }
+
+    /** Record the expansion of the references */
+    void expanded(long nanos, int steps) {
+        m_expandNanos += nanos;
+        m_expansions += steps;
+    }
+
+    RpmSpecParseMetrics getMetrics(long bytes) {
+        return new RpmSpecParseMetrics(m_readNanos, m_classifyNanos, m_expandNanos, 
+                                       m_lines, m_tags, m_macros, m_expansions, bytes);
+    }
+
+    @Override
+    public boolean line(String line) {
+        ++m_lines;
+        return m_handler.line(line);
+    }
+
+    @Override
+    public boolean tag(String key, String value) {
+        ++m_tags;
+        return m_handler.tag(key, value);
+    }
+
+    @Override
+    public boolean macroDefinition(String name, String value) {
+        ++m_macros;
+        return m_handler.macroDefinition(name, value);
+    }
+
+    @Override
+    public boolean macroUndefinition(String name) {
+        return m_handler.macroUndefinition(name);
+    }
+
+    @Override
+    public boolean sectionStart(String section, String arguments) {
+        return m_handler.sectionStart(section, arguments);
+    }
+}
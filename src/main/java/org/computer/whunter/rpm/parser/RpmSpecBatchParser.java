@@ -0,0 +1,426 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+
+/**
+ * Parses many RPM spec files in parallel. The spec files are parsed on an executor and the results
+ * are passed to a {@link Listener} as each one completes, or in the order the spec files were added if
+ * the results are ordered. A spec file that cannot be parsed does not stop the batch, its error is 
+ * reported in its {@link RpmSpecParseResult}.
+ * <p>
+ * The listener is always called from the thread that started the batch, so it does not need to be
+ * thread safe. The number of spec files being parsed at any one time is bounded so that a batch over
+ * a very large tree does not hold all of its results in memory. A {@link Batch} can be started to add
+ * spec files and trees one at a time, which is what the <code>parseAll</code> methods do.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public class RpmSpecBatchParser {
+
+    /** Receives the result of each spec file as it is parsed */
+    public interface Listener {
+        /**
+         * @param result the result of parsing one spec file, which may have failed.
+         */
+        void parsed(RpmSpecParseResult result);
+    }
+
+    /** Extracts the properties of one spec file, which may be called on any thread */
+    public interface Extractor {
+        /**
+         * @param parser the parser of the batch.
+         * @param specFile the path of the spec file.
+         * @return the properties of the spec file.
+         * @throws IOException if the spec file could not be read.
+         */
+        RpmSpecProperties extract(RpmSpecParser parser, Path specFile) throws IOException;
+    }
+
+    /** The number of spec files that can be queued for each thread before the batch waits for results */
+    private static final int QUEUED_PER_THREAD = 4;
+
+    /** Parses the whole of each spec file */
+    private static final Extractor PARSE_PROPERTIES = new Extractor() {
+        @Override
+        public RpmSpecProperties extract(RpmSpecParser parser, Path specFile) throws IOException {
+            return parser.parseProperties(specFile);
+        }
+    };
+
+    private final RpmSpecParser m_parser;
+    private final ExecutorService m_executor;
+    private final int m_parallelism;
+    private final Extractor m_extractor;
+    private final boolean m_ordered;
+
+    /**
+     * Create a batch parser that uses a fork join pool with one thread per processor.
+     *
+     * @return a batch parser.
+     */
+    public static RpmSpecBatchParser createBatchParser() {
+        return createBatchParser(RpmSpecParser.createParser(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a batch parser that creates a fork join pool for each batch. With a parallelism of one no pool is 
+     * created and the spec files are parsed on the thread that adds them.
+     *
+     * @param parser the parser to use for each spec file.
+     * @param parallelism the number of spec files to parse at the same time.
+     * @return a batch parser.
+     */
+    public static RpmSpecBatchParser createBatchParser(RpmSpecParser parser, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        return new RpmSpecBatchParser(parser, null, parallelism, PARSE_PROPERTIES, false);
+    }
+
+    /**
+     * Create a batch parser that parses on an executor owned by the caller. The executor is not shut down
+     * by the batch parser.
+     *
+     * @param parser the parser to use for each spec file.
+     * @param executor the executor to parse the spec files on.
+     * @return a batch parser.
+     */
+    public static RpmSpecBatchParser createBatchParser(RpmSpecParser parser, ExecutorService executor) {
+        return new RpmSpecBatchParser(parser, executor, Runtime.getRuntime().availableProcessors(), PARSE_PROPERTIES, false);
+    }
+
+    /** Private constructor */
+    private RpmSpecBatchParser(RpmSpecParser parser, ExecutorService executor, int parallelism, Extractor extractor, 
+                               boolean ordered) {
+        m_parser = parser;
+        m_executor = executor;
+        m_parallelism = parallelism;
+        m_extractor = extractor;
+        m_ordered = ordered;
+    }
+
+    /**
+     * @param extractor extracts the properties of each spec file, for example by reading only as much of it as
+     *        is needed. The default parses the whole of each spec file with {@link RpmSpecParser#parseProperties(Path)}.
+     * @return a batch parser that is the same as this one except for the extractor.
+     */
+    public RpmSpecBatchParser withExtractor(Extractor extractor) {
+        return new RpmSpecBatchParser(m_parser, m_executor, m_parallelism, extractor, m_ordered);
+    }
+
+    /**
+     * @param ordered true to pass the results to the listener in the order the spec files were added, rather than
+     *        as they complete. A spec file that is slow to parse then holds back the results that follow it.
+     * @return a batch parser that is the same as this one except for the order of the results.
+     */
+    public RpmSpecBatchParser withOrderedResults(boolean ordered) {
+        return new RpmSpecBatchParser(m_parser, m_executor, m_parallelism, m_extractor, ordered);
+    }
+
+    /**
+     * Start a batch that spec files can be added to one at a time. The batch must be closed, which abandons 
+     * any spec files that are still being parsed if it has not been finished.
+     *
+     * @param listener receives the result of each file as it is parsed.
+     * @return the batch.
+     */
+    public Batch startBatch(Listener listener) {
+        return new Batch(listener);
+    }
+
+    /**
+     * Parse every file under a directory whose path matches a glob, as {@link Batch#addTree(Path, String)} does.
+     *
+     * @param root the directory to search.
+     * @param glob the glob that selects the files to parse.
+     * @param listener receives the result of each file as it is parsed.
+     * @return statistics of the batch.
+     * @throws IOException if the root could not be read.
+     * @throws InterruptedException if the thread was interrupted while waiting for results.
+     */
+    public RpmSpecBatchStatistics parseAll(Path root, String glob, Listener listener) throws IOException, InterruptedException {
+        try (Batch batch = startBatch(listener)) {
+            batch.addTree(root, glob);
+            return batch.finish();
+        }
+    }
+
+    /**
+     * Parse a collection of spec files.
+     *
+     * @param specFiles the paths of the spec files to parse.
+     * @param listener receives the result of each file as it is parsed.
+     * @return statistics of the batch.
+     * @throws InterruptedException if the thread was interrupted while waiting for results.
+     */
+    public RpmSpecBatchStatistics parseAll(Collection<Path> specFiles, Listener listener) throws InterruptedException {
+        try (Batch batch = startBatch(listener)) {
+            for (Path specFile : specFiles) {
+                batch.add(specFile);
+            }
+            return batch.finish();
+        }
+    }
+
+    /** 
+     * The spec files of one batch that are being parsed and the totals of those that have been passed to the
+     * listener. A batch is only used by the thread that started it.
+     */
+    public final class Batch implements Closeable {
+        private final Listener m_listener;
+        private final ExecutorService m_batchExecutor;
+        private final CompletionService<RpmSpecParseResult> m_completions;
+        private final Deque<Future<RpmSpecParseResult>> m_pending = new ArrayDeque<Future<RpmSpecParseResult>>();
+        private final int m_maxPending = m_parallelism * QUEUED_PER_THREAD;
+        private final long m_start = System.nanoTime();
+        private int m_files;
+        private int m_failures;
+        private long m_bytes;
+
+        private Batch(Listener listener) {
+            m_listener = listener;
+            if (m_executor != null) {
+                m_batchExecutor = m_executor;
+            } else {
+                m_batchExecutor = (m_parallelism > 1) ? new ForkJoinPool(m_parallelism) : null;
+            }
+            // Ordered results are taken from the head of the pending queue rather than as they complete
+            boolean completions = m_batchExecutor != null && !m_ordered;
+            m_completions = completions ? new ExecutorCompletionService<RpmSpecParseResult>(m_batchExecutor) : null;
+        }
+
+        /** 
+         * Queue a spec file to be parsed, first waiting for a result if too many are queued already.
+         *
+         * @param specFile the path of the spec file.
+         * @throws InterruptedException if the thread was interrupted while waiting for a result.
+         */
+        public void add(Path specFile) throws InterruptedException {
+            ParseTask task = new ParseTask(m_parser, m_extractor, specFile);
+            if (m_batchExecutor == null) {
+                add(task.call());
+                return;
+            }
+            if (m_pending.size() == m_maxPending) {
+                add(take());
+            }
+            m_pending.add((m_completions != null) ? m_completions.submit(task) : m_batchExecutor.submit(task));
+        }
+
+        /**
+         * Queue every file under a directory whose path matches a glob. The glob is matched against the path of 
+         * each file relative to the root, or against just its name if the glob does not contain a '/'. 
+         * For example <code>*.spec</code> matches spec files at any depth and <code>SPECS/*.spec</code> 
+         * only matches the spec files in the SPECS directory.
+         * <p>
+         * Each spec file is queued as soon as the walk finds it, so the paths of the tree are not held in memory.
+         * An entry of the tree that cannot be read, such as a directory without permission or a file that is 
+         * removed during the walk, is passed to the listener as a failed result and the walk carries on.
+         *
+         * @param root the directory to search.
+         * @param glob the glob that selects the files to parse.
+         * @throws IOException if the root could not be read.
+         * @throws InterruptedException if the thread was interrupted while waiting for a result.
+         */
+        public void addTree(final Path root, String glob) throws IOException, InterruptedException {
+            final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+            final boolean matchName = glob.indexOf('/') < 0;
+            try {
+                Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                        Path candidate = matchName ? file.getFileName() : root.relativize(file);
+                        if (attributes.isRegularFile() && matcher.matches(candidate)) {
+                            try {
+                                add(file);
+                            }
+                            catch (InterruptedException e) {
+                                throw new InterruptedWalk(e);
+                            }
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+                        if (file.equals(root)) {
+                            throw e;
+                        }
+                        failed(file, e);
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult postVisitDirectory(Path directory, IOException e) {
+                        if (e != null) {
+                            failed(directory, e);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            }
+            catch (InterruptedWalk e) {
+                throw (InterruptedException) e.getCause();
+            }
+        }
+
+        /**
+         * Wait for the spec files that are still being parsed.
+         *
+         * @return statistics of the batch.
+         * @throws InterruptedException if the thread was interrupted while waiting for results.
+         */
+        public RpmSpecBatchStatistics finish() throws InterruptedException {
+            while (!m_pending.isEmpty()) {
+                add(take());
+            }
+            return new RpmSpecBatchStatistics(m_files, m_failures, m_bytes, System.nanoTime() - m_start);
+        }
+
+        /** Abandon the spec files that are still being parsed and stop the pool if the batch created it */
+        @Override
+        public void close() {
+            for (Future<RpmSpecParseResult> future : m_pending) {
+                future.cancel(true);
+            }
+            m_pending.clear();
+            if (m_batchExecutor != null && m_batchExecutor != m_executor) {
+                m_batchExecutor.shutdownNow();
+            }
+        }
+
+        /** Pass on an entry of a tree that could not even be queued, in its place if the results are ordered */
+        private void failed(Path path, IOException e) {
+            RpmSpecParseResult result = new RpmSpecParseResult(path, null, e, 0);
+            if (m_completions != null || m_pending.isEmpty()) {
+                add(result);
+                return;
+            }
+            FutureTask<RpmSpecParseResult> done = new FutureTask<RpmSpecParseResult>(new ParseTask(result));
+            done.run();
+            m_pending.add(done);
+        }
+
+        private void add(RpmSpecParseResult result) {
+            ++m_files;
+            if (!result.isSuccess()) {
+                ++m_failures;
+            }
+            m_bytes += result.getBytes();
+            m_listener.parsed(result);
+        }
+
+        private RpmSpecParseResult take() throws InterruptedException {
+            Future<RpmSpecParseResult> future;
+            if (m_completions != null) {
+                future = m_completions.take();
+                m_pending.remove(future);
+            } else {
+                future = m_pending.remove();
+            }
+            try {
+                return future.get();
+            }
+            catch (ExecutionException e) {
+                // The task captures exceptions so only errors get here
+                Throwable cause = e.getCause();
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new RuntimeException(cause);
+            }
+        }
+    }
+
+    /** Carries an interruption out of a directory walk, whose visitor can only throw an IOException */
+    private static final class InterruptedWalk extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        InterruptedWalk(InterruptedException cause) {
+            super(cause);
+        }
+    }
+
+    /** Parse one spec file, capturing any failure in the result */
+    private static class ParseTask implements Callable<RpmSpecParseResult> {
+        private final RpmSpecParser m_parser;
+        private final Extractor m_extractor;
+        private final Path m_specFile;
+        private final RpmSpecParseResult m_result;
+
+        ParseTask(RpmSpecParser parser, Extractor extractor, Path specFile) {
+            m_parser = parser;
+            m_extractor = extractor;
+            m_specFile = specFile;
+            m_result = null;
+        }
+
+        /** A task whose result is already known */
+        ParseTask(RpmSpecParseResult result) {
+            m_parser = null;
+            m_extractor = null;
+            m_specFile = result.getPath();
+            m_result = result;
+        }
+
+        @Override
+        public RpmSpecParseResult call() {
+            if (m_result != null) {
+                return m_result;
+            }
+            long bytes = 0;
+            try {
+                bytes = Files.size(m_specFile);
+                RpmSpecProperties properties = m_extractor.extract(m_parser, m_specFile);
+                return new RpmSpecParseResult(m_specFile, properties, null, bytes);
+            }
+            catch (Exception e) {
+                return new RpmSpecParseResult(m_specFile, null, e, bytes);
+            }
+        }
+    }
+}
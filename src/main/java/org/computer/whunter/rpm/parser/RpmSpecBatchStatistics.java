@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The totals and throughput of a batch of spec files parsed by {@link RpmSpecBatchParser}.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public final class RpmSpecBatchStatistics {
+
+    private final int m_files;
+    private final int m_failures;
+    private final long m_bytes;
+    private final long m_elapsedNanos;
+
+    RpmSpecBatchStatistics(int files, int failures, long bytes, long elapsedNanos) {
+        m_files = files;
+        m_failures = failures;
+        m_bytes = bytes;
+        m_elapsedNanos = elapsedNanos;
+    }
+
+    /** @return the number of spec files in the batch, including those that failed. */
+    public int getFiles() {
+        return m_files;
+    }
+
+    /** @return the number of spec files that could not be parsed. */
+    public int getFailures() {
+        return m_failures;
+    }
+
+    /** @return the total size of the spec files in bytes. */
+    public long getBytes() {
+        return m_bytes;
+    }
+
+    /** @return the time taken by the batch in nanoseconds. */
+    public long getElapsedNanos() {
+        return m_elapsedNanos;
+    }
+
+    /** @return the number of spec files parsed per second. */
+    public double getFilesPerSecond() {
+        return perSecond(m_files);
+    }
+
+    /** @return the number of bytes of spec files parsed per second. */
+    public double getBytesPerSecond() {
+        return perSecond(m_bytes);
+    }
+
+    private double perSecond(long count) {
+        return (m_elapsedNanos == 0) ? 0.0 : count * (double) TimeUnit.SECONDS.toNanos(1) / m_elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d spec files (%d failed), %d bytes in %d ms, %.1f files/s, %.1f KB/s", 
+                             m_files, m_failures, m_bytes, TimeUnit.NANOSECONDS.toMillis(m_elapsedNanos),
+                             getFilesPerSecond(), getBytesPerSecond() / 1024);
+    }
+}
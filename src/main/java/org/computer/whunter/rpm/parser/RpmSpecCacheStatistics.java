@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+/**
+ * A snapshot of the counters of a {@link RpmSpecParseCache}.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public final class RpmSpecCacheStatistics {
+
+    private final long m_hits;
+    private final long m_hashHits;
+    private final long m_diskHits;
+    private final long m_misses;
+    private final long m_evictions;
+    private final long m_size;
+
+    RpmSpecCacheStatistics(long hits, long hashHits, long diskHits, long misses, long evictions, long size) {
+        m_hits = hits;
+        m_hashHits = hashHits;
+        m_diskHits = diskHits;
+        m_misses = misses;
+        m_evictions = evictions;
+        m_size = size;
+    }
+
+    /** @return the number of results found in memory because the size and modification time matched. */
+    public long getHits() {
+        return m_hits;
+    }
+
+    /** @return the number of results found in memory because the content hash matched. */
+    public long getHashHits() {
+        return m_hashHits;
+    }
+
+    /** @return the number of results read from the cache directory. */
+    public long getDiskHits() {
+        return m_diskHits;
+    }
+
+    /** @return the number of spec files that had to be parsed. */
+    public long getMisses() {
+        return m_misses;
+    }
+
+    /** @return the number of results evicted from memory to keep the cache within its maximum size. */
+    public long getEvictions() {
+        return m_evictions;
+    }
+
+    /** @return the number of results held in memory. */
+    public long getSize() {
+        return m_size;
+    }
+
+    /** @return the fraction of requests that did not need a parse. */
+    public double getHitRate() {
+        long hits = m_hits + m_hashHits + m_diskHits;
+        long requests = hits + m_misses;
+        return (requests == 0) ? 0.0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d hashHits=%d diskHits=%d misses=%d evictions=%d size=%d hitRate=%.2f", 
+                             m_hits, m_hashHits, m_diskHits, m_misses, m_evictions, m_size, getHitRate());
+    }
+}
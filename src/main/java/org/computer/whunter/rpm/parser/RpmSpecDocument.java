@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Multimap;
+
+/**
+ * A spec file parsed into its sections by {@link RpmSpecParser#parseDocument(java.nio.file.Path)}. The 
+ * properties are the tags of the main package and the macros, as returned by {@link RpmSpecParser#parse(java.nio.file.Path)}.
+ * The main package comes first in the packages, followed by the subpackages in the order they are declared.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public final class RpmSpecDocument {
+
+    private final ListMultimap<String, String> m_properties;
+    private final ImmutableList<RpmSpecPackage> m_packages;
+    private final ImmutableList<RpmSpecSection> m_sections;
+
+    RpmSpecDocument(ListMultimap<String, String> properties, List<RpmSpecPackage> packages, List<RpmSpecSection> sections) {
+        m_properties = properties;
+        m_packages = ImmutableList.copyOf(packages);
+        m_sections = ImmutableList.copyOf(sections);
+    }
+
+    /** @return the tags of the main package and the macros, with their references expanded. */
+    public Multimap<String, String> getProperties() {
+        return m_properties;
+    }
+
+    /** @return the main package followed by the subpackages. */
+    public List<RpmSpecPackage> getPackages() {
+        return m_packages;
+    }
+
+    /** @return the main package, described by the preamble. */
+    public RpmSpecPackage getMainPackage() {
+        return m_packages.get(0);
+    }
+
+    /**
+     * @param name the full name of the package, such as <code>foo-devel</code>.
+     * @return the package or null if the spec file does not build a package with the name.
+     */
+    public RpmSpecPackage getPackage(String name) {
+        for (RpmSpecPackage rpmPackage : m_packages) {
+            if (rpmPackage.getName().equals(name)) {
+                return rpmPackage;
+            }
+        }
+        return null;
+    }
+
+    /** @return every section in the order they appear in the spec file. */
+    public List<RpmSpecSection> getSections() {
+        return m_sections;
+    }
+
+    /**
+     * @param name the name of the section without the %, for example <code>changelog</code>.
+     * @return the first section with the name or null if the spec file does not have one.
+     */
+    public RpmSpecSection getSection(String name) {
+        return findSection(m_sections, name);
+    }
+
+    static RpmSpecSection findSection(List<RpmSpecSection> sections, String name) {
+        for (RpmSpecSection section : sections) {
+            if (section.getName().equals(name)) {
+                return section;
+            }
+        }
+        return null;
+    }
+}
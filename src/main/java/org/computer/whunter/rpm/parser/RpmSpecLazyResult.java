@@ -0,0 +1,206 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+
+/**
+ * A spec file that is parsed on demand. Asking for a key reads and classifies lines only until the key
+ * is found, along with any macros or fields its value refers to. Each value is expanded the first time 
+ * it is asked for and remembered. Where a key has several values {@link #get(String)} returns the first,
+ * which can be found without reading the rest of the file.
+ * <p>
+ * The spec file is closed once it has been read to the end. It should be closed by the caller if it 
+ * may not have been, so that any buffer holding its contents is released. A lazy result is not thread safe.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public final class RpmSpecLazyResult implements Closeable {
+
+    private final RpmSpecParser m_parser;
+
+    /** The lines that have not been read yet, or null once the end has been reached */
+    private SpecLineSource m_lines;
+
+    /** The section that reading has reached */
+    private final RpmSpecParser.Position m_position;
+
+    /** The unexpanded values found so far */
+    private final ListMultimap<String, String> m_found = ArrayListMultimap.create();
+
+    private final MacroExpander m_expander;
+
+    /** Set if reading the spec file failed, it is thrown again by every later call */
+    private IOException m_failure;
+
+    RpmSpecLazyResult(RpmSpecParser parser, SpecLineSource lines) {
+        m_parser = parser;
+        m_lines = lines;
+        m_position = parser.newPosition(m_found);
+        m_expander = new MacroExpander(new MacroExpander.Symbols() {
+            @Override
+            public String valueOf(String name) {
+                String value = find(name);
+                return (value == null) ? m_position.globalValue(name) : value;
+            }
+        });
+    }
+
+    /**
+     * Get the expanded value of a field or macro, reading only as much of the spec file as is needed.
+     * @param key the name of the field in lower case, or the name of a macro.
+     * @return the first value of the key or null if the spec file does not define it.
+     * @throws IOException if the spec file could not be read.
+     */
+    public String get(String key) throws IOException {
+        String value = m_expander.resolve(key);
+        checkFailure();
+        return value;
+    }
+
+    /**
+     * Get all the expanded values of a field or macro, which means reading the whole spec file.
+     * @param key the name of the field in lower case, or the name of a macro.
+     * @return the values of the key in the order they appear, which is empty if the spec file does not define it.
+     * @throws IOException if the spec file could not be read.
+     */
+    public List<String> getAll(String key) throws IOException {
+        readLines(null);
+        checkFailure();
+        List<String> values = m_found.get(key);
+        if (values.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> expanded = new ArrayList<String>(values.size());
+        for (String value : values) {
+            expanded.add(m_expander.expand(value));
+        }
+        return expanded;
+    }
+
+    @Override
+    public void close() {
+        if (m_lines != null) {
+            try {
+                m_lines.close();
+            }
+            catch (IOException e) {
+                // The contents are no longer needed
+            }
+            m_lines = null;
+        }
+    }
+
+    /** Find the first unexpanded value of a name, or of its lower case form, reading further if needed */
+    private String find(String name) {
+        String lowerCaseName = name.toLowerCase();
+        while (true) {
+            List<String> values = m_found.get(name);
+            if (values.isEmpty() && !lowerCaseName.equals(name)) {
+                values = m_found.get(lowerCaseName);
+            }
+            if (!values.isEmpty()) {
+                return values.get(0);
+            }
+            if (!readLines(name)) {
+                return null;
+            }
+        }
+    }
+
+    /** 
+     * Read lines until the name is found, or to the end if the name is null.
+     * @return false if the end of the spec file has already been reached.
+     */
+    private boolean readLines(final String name) {
+        if (m_lines == null) {
+            return false;
+        }
+        final String lowerCaseName = (name == null) ? null : name.toLowerCase();
+        SpecLineHandler handler = new SpecLineHandler() {
+            @Override
+            public boolean line(String line) {
+                return true;
+            }
+
+            @Override
+            public boolean tag(String key, String value) {
+                if (m_position.inSubpackage()) {
+                    return true;
+                }
+                m_found.put(key, value);
+                return !matches(key);
+            }
+
+            @Override
+            public boolean macroDefinition(String macro, String value) {
+                m_found.put(macro, value);
+                return !matches(macro);
+            }
+
+            @Override
+            public boolean macroUndefinition(String macro) {
+                m_found.removeAll(macro);
+                m_expander.invalidate();
+                return true;
+            }
+
+            @Override
+            public boolean sectionStart(String section, String arguments) {
+                return true;
+            }
+
+            private boolean matches(String key) {
+                return name != null && (key.equals(name) || key.equals(lowerCaseName));
+            }
+        };
+        try {
+            String line;
+            while ((line = m_lines.readLine()) != null) {
+                if (!m_parser.classifyLine(line, m_position, handler)) {
+                    return true;
+                }
+            }
+        }
+        catch (IOException e) {
+            m_failure = e;
+        }
+        close();
+        return true;
+    }
+
+    private void checkFailure() throws IOException {
+        if (m_failure != null) {
+            throw m_failure;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+/**
+ * Receives the contents of a spec file as it is parsed by {@link RpmSpecParser#parse(java.nio.file.Path, RpmSpecListener)}. 
+ * Nothing is collected by the parser, so a listener that only needs a few fields can stop the parse as soon as it 
+ * has them by returning false from any callback.
+ * <p>
+ * The values of tags and macros are expanded using the tags and macros that came before them in the spec file,
+ * as rpm does. {@link RpmSpecListenerAdapter} can be extended to implement only the callbacks of interest.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public interface RpmSpecListener {
+
+    /**
+     * Called for every line of the spec file, before it is classified.
+     * @param line the line as it appears in the spec file.
+     * @return true to continue parsing, false to stop.
+     */
+    boolean line(String line);
+
+    /**
+     * Called for each tag, such as <code>Version: 1.1</code>.
+     * @param key the name of the tag in lower case.
+     * @param value the expanded value of the tag.
+     * @return true to continue parsing, false to stop.
+     */
+    boolean tag(String key, String value);
+
+    /**
+     * Called for each macro definition, such as <code>%define who Warwick Hunter</code>.
+     * @param name the name of the macro.
+     * @param value the expanded value of the macro.
+     * @return true to continue parsing, false to stop.
+     */
+    boolean macroDefinition(String name, String value);
+
+    /**
+     * Called at the start of each section, such as <code>%files -n foo</code>.
+     * @param section the name of the section without the %, for example <code>files</code>.
+     * @param arguments the rest of the line after the name of the section, which may be empty.
+     * @return true to continue parsing, false to stop.
+     */
+    boolean sectionStart(String section, String arguments);
+}
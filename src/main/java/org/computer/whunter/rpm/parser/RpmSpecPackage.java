@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ListMultimap;
+
+/**
+ * One of the packages built by a spec file, either the main package described by the preamble or a
+ * subpackage described by a <code>%package</code> section. The tags have had their references expanded
+ * and the sections are those that name the package, such as its <code>%description</code>, 
+ * <code>%files</code> and scriptlets.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public final class RpmSpecPackage {
+
+    private final String m_name;
+    private final ImmutableListMultimap<String, String> m_tags;
+    private final ImmutableList<RpmSpecSection> m_sections;
+
+    RpmSpecPackage(String name, ListMultimap<String, String> tags, List<RpmSpecSection> sections) {
+        m_name = name;
+        m_tags = ImmutableListMultimap.copyOf(tags);
+        m_sections = ImmutableList.copyOf(sections);
+    }
+
+    /** @return the full name of the package. */
+    public String getName() {
+        return m_name;
+    }
+
+    /** @return the tags of the package keyed by their lower case names. */
+    public ListMultimap<String, String> getTags() {
+        return m_tags;
+    }
+
+    /**
+     * @param key the name of the tag in lower case.
+     * @return the first value of the tag or null if the package does not have it.
+     */
+    public String getTag(String key) {
+        List<String> values = m_tags.get(key);
+        return values.isEmpty() ? null : values.get(0);
+    }
+
+    /** @return the sections that belong to the package in the order they appear in the spec file. */
+    public List<RpmSpecSection> getSections() {
+        return m_sections;
+    }
+
+    /**
+     * @param name the name of the section without the %, for example <code>files</code>.
+     * @return the first section of the package with the name or null if it does not have one.
+     */
+    public RpmSpecSection getSection(String name) {
+        return RpmSpecDocument.findSection(m_sections, name);
+    }
+
+    @Override
+    public String toString() {
+        return m_name;
+    }
+}
@@ -0,0 +1,342 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.Multimap;
+import com.google.common.hash.Hashing;
+
+/**
+ * A cache of parsed spec files that sits in front of an {@link RpmSpecParser}. Results are kept in a 
+ * bounded, least recently used, in memory cache keyed by the path of the spec file. A cached result is 
+ * used straight away if the size and modification time of the file have not changed. Otherwise the file 
+ * is read and its content hash compared, so a file that was touched but not changed is not parsed again.
+ * <p>
+ * The cache can also persist results in a directory, named by the content hash, so that a new JVM can 
+ * use the results of an earlier one without parsing. The directory can be shared by any number of caches
+ * and processes. The cache is thread safe and the results it returns are immutable.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public class RpmSpecParseCache {
+
+    /** 
+     * The version of the persisted results, which is written after the magic number of each file. A file of any 
+     * other version is ignored and parsed again, so this must be changed whenever the layout of the file or the 
+     * properties the parser produces for a spec file change.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC = 0x52504d53;
+
+    private static final String CACHE_FILE_SUFFIX = ".rpmspec";
+
+    /** A parsed spec file along with what is known about the file it came from */
+    private static final class Entry {
+        private final long m_size;
+        private final long m_modified;
+        private final String m_hash;
+        private final RpmSpecProperties m_properties;
+
+        Entry(long size, long modified, String hash, RpmSpecProperties properties) {
+            m_size = size;
+            m_modified = modified;
+            m_hash = hash;
+            m_properties = properties;
+        }
+    }
+
+    private final RpmSpecParser m_parser;
+
+    /** The directory to persist results in, or null if they are only held in memory */
+    private final Path m_directory;
+
+    private final Cache<Path, Entry> m_entries;
+
+    private final AtomicLong m_hits = new AtomicLong();
+    private final AtomicLong m_hashHits = new AtomicLong();
+    private final AtomicLong m_diskHits = new AtomicLong();
+    private final AtomicLong m_misses = new AtomicLong();
+    private final AtomicLong m_evictions = new AtomicLong();
+
+    /**
+     * Create a cache that holds results in memory only.
+     *
+     * @param parser the parser to parse spec files that are not in the cache.
+     * @param maximumSize the number of spec files to hold in memory.
+     * @return a cache.
+     */
+    public static RpmSpecParseCache createCache(RpmSpecParser parser, int maximumSize) {
+        return new RpmSpecParseCache(parser, maximumSize, null);
+    }
+
+    /**
+     * Create a cache that holds results in memory and persists them in a directory.
+     *
+     * @param parser the parser to parse spec files that are not in the cache.
+     * @param maximumSize the number of spec files to hold in memory.
+     * @param directory the directory to persist results in, which is created if it does not exist.
+     * @return a cache.
+     * @throws IOException if the directory could not be created.
+     */
+    public static RpmSpecParseCache createCache(RpmSpecParser parser, int maximumSize, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        return new RpmSpecParseCache(parser, maximumSize, directory);
+    }
+
+    /** Private constructor */
+    private RpmSpecParseCache(RpmSpecParser parser, int maximumSize, Path directory) {
+        m_parser = parser;
+        m_directory = directory;
+        m_entries = CacheBuilder.newBuilder()
+                                .maximumSize(maximumSize)
+                                .removalListener(new RemovalListener<Path, Entry>() {
+                                    @Override
+                                    public void onRemoval(RemovalNotification<Path, Entry> notification) {
+                                        if (notification.wasEvicted()) {
+                                            m_evictions.incrementAndGet();
+                                        }
+                                    }
+                                })
+                                .build();
+    }
+
+    /**
+     * Parse a spec file, or return the result of an earlier parse if the file has not changed since.
+     *
+     * @param specFile the path of the spec file.
+     * @return the fields and macros of the spec file, which cannot be modified.
+     * @throws IOException if the spec file could not be read.
+     */
+    public Multimap<String, String> parse(Path specFile) throws IOException {
+        return parseProperties(specFile).asMultimap();
+    }
+
+    /**
+     * Parse a spec file into compact properties, or return the result of an earlier parse if the file has not 
+     * changed since. The results are held in memory in this form, so this does not create anything for a result
+     * that is already cached.
+     *
+     * @param specFile the path of the spec file.
+     * @return the fields and macros of the spec file.
+     * @throws IOException if the spec file could not be read.
+     */
+    public RpmSpecProperties parseProperties(Path specFile) throws IOException {
+        Path key = specFile.toAbsolutePath().normalize();
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(key, BasicFileAttributes.class);
+        }
+        catch (NoSuchFileException e) {
+            m_entries.invalidate(key);
+            throw e;
+        }
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+
+        Entry cached = m_entries.getIfPresent(key);
+        if (cached != null && cached.m_size == size && cached.m_modified == modified) {
+            m_hits.incrementAndGet();
+            return cached.m_properties;
+        }
+
+        // The file may have been touched without being changed, compare the contents
+        byte[] contents = Files.readAllBytes(key);
+        // The defines and macros of the parser change the result, so they are part of the hash of a shared directory
+        String hash = Hashing.murmur3_128().newHasher()
+                                           .putString(m_parser.getCharset().name())
+                                           .putString(new TreeMap<String, String>(m_parser.getDefines()).toString())
+                                           .putString(m_parser.getMacros().getFingerprint())
+                                           .putBytes(contents)
+                                           .hash()
+                                           .toString();
+        if (cached != null && cached.m_hash.equals(hash)) {
+            m_hashHits.incrementAndGet();
+            m_entries.put(key, new Entry(contents.length, modified, hash, cached.m_properties));
+            return cached.m_properties;
+        }
+
+        RpmSpecProperties properties = read(hash);
+        if (properties != null) {
+            m_diskHits.incrementAndGet();
+        } else {
+            m_misses.incrementAndGet();
+            properties = m_parser.parseProperties(ByteBuffer.wrap(contents));
+            write(hash, properties);
+        }
+        m_entries.put(key, new Entry(contents.length, modified, hash, properties));
+        return properties;
+    }
+
+    /**
+     * Find out if the result for a spec file is in memory and the file has not been modified since.
+     *
+     * @param specFile the path of the spec file.
+     * @return true if parsing the file will return a result from memory.
+     */
+    public boolean isCurrent(Path specFile) {
+        Path key = specFile.toAbsolutePath().normalize();
+        Entry cached = m_entries.getIfPresent(key);
+        if (cached == null) {
+            return false;
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+            return cached.m_size == attributes.size() && cached.m_modified == attributes.lastModifiedTime().toMillis();
+        }
+        catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Forget every result held in memory, persisted results are kept. */
+    public void invalidateAll() {
+        m_entries.invalidateAll();
+    }
+
+    /** @return a snapshot of the counters of the cache. */
+    public RpmSpecCacheStatistics getStatistics() {
+        return new RpmSpecCacheStatistics(m_hits.get(), m_hashHits.get(), m_diskHits.get(), m_misses.get(), 
+                                          m_evictions.get(), m_entries.size());
+    }
+
+    /** Read a persisted result, returning null if there is none or it cannot be used */
+    private RpmSpecProperties read(String hash) {
+        if (m_directory == null) {
+            return null;
+        }
+        Path file = m_directory.resolve(hash + CACHE_FILE_SUFFIX);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (InputStream stream = Files.newInputStream(file)) {
+            // Every count and length is checked against the size of the file before anything is allocated
+            long size = Files.size(file);
+            DataInputStream input = new DataInputStream(new BufferedInputStream(stream));
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            ImmutableListMultimap.Builder<String, String> properties = ImmutableListMultimap.builder();
+            int count = readLength(input, size / 8);
+            for (int i = 0; i < count; ++i) {
+                properties.put(readString(input, size), readString(input, size));
+            }
+            return RpmSpecProperties.copyOf(properties.build());
+        }
+        catch (IOException | RuntimeException e) {
+            // A damaged or partly written file is parsed again and replaced
+            return null;
+        }
+    }
+
+    /** Persist a result, replacing any earlier file atomically so readers never see part of it */
+    private void write(String hash, RpmSpecProperties properties) {
+        if (m_directory == null) {
+            return;
+        }
+        Path temporary = null;
+        try {
+            temporary = Files.createTempFile(m_directory, hash, ".tmp");
+            try (OutputStream stream = Files.newOutputStream(temporary)) {
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream));
+                output.writeInt(MAGIC);
+                output.writeInt(FORMAT_VERSION);
+                output.writeInt(properties.size());
+                for (String key : properties.getKeys()) {
+                    for (String value : properties.getAll(key)) {
+                        writeString(output, key);
+                        writeString(output, value);
+                    }
+                }
+                output.flush();
+            }
+            Path file = m_directory.resolve(hash + CACHE_FILE_SUFFIX);
+            try {
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            temporary = null;
+        }
+        catch (IOException e) {
+            // The result is still cached in memory, it will be persisted by a later parse
+        }
+        finally {
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                }
+                catch (IOException e) {
+                    // Nothing more can be done
+                }
+            }
+        }
+    }
+
+    /** Strings are written as their UTF-8 length and bytes, as values may be longer than writeUTF allows */
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input, long limit) throws IOException {
+        byte[] bytes = new byte[readLength(input, limit)];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Read a count or length, which cannot be more than the limit in a file that is not damaged */
+    private static int readLength(DataInputStream input, long limit) throws IOException {
+        int length = input.readInt();
+        if (length < 0 || length > limit) {
+            throw new IOException("Damaged cache file, length " + length + " is out of range");
+        }
+        return length;
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The metrics of parsing one spec file. The time is split into loading the file, classifying its lines into
+ * tags and macros, which includes decoding them, and expanding the references in their values.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public final class RpmSpecParseMetrics {
+
+    private final long m_readNanos;
+    private final long m_classifyNanos;
+    private final long m_expandNanos;
+    private final int m_lines;
+    private final int m_tags;
+    private final int m_macros;
+    private final int m_expansions;
+    private final long m_bytes;
+
+    RpmSpecParseMetrics(long readNanos, long classifyNanos, long expandNanos, 
+                        int lines, int tags, int macros, int expansions, long bytes) {
+        m_readNanos = readNanos;
+        m_classifyNanos = classifyNanos;
+        m_expandNanos = expandNanos;
+        m_lines = lines;
+        m_tags = tags;
+        m_macros = macros;
+        m_expansions = expansions;
+        m_bytes = bytes;
+    }
+
+    /** 
+     * @return the time spent loading the spec file before its lines are read, in nanoseconds. It is zero when the
+     * contents were already in memory or were read from a {@link java.io.Reader} as the lines were classified.
+     */
+    public long getReadNanos() {
+        return m_readNanos;
+    }
+
+    /** @return the time spent reading, decoding and classifying the lines, in nanoseconds. */
+    public long getClassifyNanos() {
+        return m_classifyNanos;
+    }
+
+    /** @return the time spent expanding references, in nanoseconds. */
+    public long getExpandNanos() {
+        return m_expandNanos;
+    }
+
+    /** @return the time spent in all phases of the parse, in nanoseconds. */
+    public long getTotalNanos() {
+        return m_readNanos + m_classifyNanos + m_expandNanos;
+    }
+
+    /** @return the number of lines read. */
+    public int getLines() {
+        return m_lines;
+    }
+
+    /** @return the number of tags found. */
+    public int getTags() {
+        return m_tags;
+    }
+
+    /** @return the number of macro definitions found. */
+    public int getMacros() {
+        return m_macros;
+    }
+
+    /** @return the number of references expanded, including those inside the values of other references. */
+    public int getExpansions() {
+        return m_expansions;
+    }
+
+    /** @return the size of the spec file in bytes, or -1 if it was read from a {@link java.io.Reader}. */
+    public long getBytes() {
+        return m_bytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d lines, %d tags, %d macros, %d expansions, %d bytes in %d us " +
+                             "(read %d us, classify %d us, expand %d us)",
+                             m_lines, m_tags, m_macros, m_expansions, m_bytes, micros(getTotalNanos()),
+                             micros(m_readNanos), micros(m_classifyNanos), micros(m_expandNanos));
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+import java.nio.file.Path;
+
+import com.google.common.collect.Multimap;
+
+/**
+ * The outcome of parsing one spec file as part of a batch. Either the properties of the spec file
+ * or the exception that prevented it from being parsed are present.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public final class RpmSpecParseResult {
+
+    private final Path m_path;
+    private final RpmSpecProperties m_properties;
+    private final Exception m_error;
+    private final long m_bytes;
+
+    RpmSpecParseResult(Path path, RpmSpecProperties properties, Exception error, long bytes) {
+        m_path = path;
+        m_properties = properties;
+        m_error = error;
+        m_bytes = bytes;
+    }
+
+    /** @return the path of the spec file. */
+    public Path getPath() {
+        return m_path;
+    }
+
+    /** @return the fields and macros of the spec file as a multimap, or null if it could not be parsed. */
+    public Multimap<String, String> getProperties() {
+        return (m_properties == null) ? null : m_properties.asMultimap();
+    }
+
+    /** 
+     * @return the fields and macros of the spec file in the compact form they are held in, or null if it could 
+     * not be parsed. Use this rather than {@link #getProperties()} to keep the results of many spec files.
+     */
+    public RpmSpecProperties getSpecProperties() {
+        return m_properties;
+    }
+
+    /** @return the exception that prevented the spec file being parsed, or null if it was parsed. */
+    public Exception getError() {
+        return m_error;
+    }
+
+    /** @return true if the spec file was parsed. */
+    public boolean isSuccess() {
+        return m_error == null;
+    }
+
+    /** @return the size of the spec file in bytes. */
+    public long getBytes() {
+        return m_bytes;
+    }
+
+    @Override
+    public String toString() {
+        return m_path + (isSuccess() ? "" : " " + m_error);
+    }
+}
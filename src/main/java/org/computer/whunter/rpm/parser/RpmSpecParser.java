@@ -24,47 +24,114 @@
  */
 package org.computer.whunter.rpm.parser;
 
-import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Properties;
-import java.util.Scanner;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Multimap;
+import com.google.common.io.CharStreams;
 
 /**
  * This is a parser of an RPM Spec file. It extracts a number of properties from an RPM spec file
  * and presents them as properties. Some properties can refer to the values of other properties with
  * a syntax of %{fieldName}. The references are expanded in the properties where possible.
+ * <p>
+ * A parser is immutable and thread safe. The tables used to classify lines are built once and shared 
+ * by every parser, and all the state of a parse is local to the call, so one parser can be used to
+ * parse many files from many threads at the same time.
  * 
  * @author Warwick Hunter (w.hunter@computer.org)
  * @date   2012-02-22
  */
 public class RpmSpecParser {
+
+    /** The ways that the lines of a spec file can be classified into fields and macro definitions */
+    public enum Classifier {
+        /** A single pass scanner that reads the tag once and looks it up in a table */
+        SCANNER,
+        /** The original classifier that tries every line against a regular expression for each field */
+        REGEX,
+    }
     
-    private static final String[] FIELDS = { "name", "version", "release", "buildrequires", "requires",
-                                             "summary", "license", "vendor", "packager", "provides",
-                                             "url", "source[0-9]+", "group", "buildRoot", "buildArch",
-                                             "autoreqprov", "prefix", };
-
-    private static final String MACRO_DEFINITION_PATTERN = "^%define\\s.*";
-
-    private final Map<Pattern, String> m_fieldPatterns;
-    private final Map<Pattern, String> m_fieldReferenceMatcherPatterns;
-    private final Map<String, Pattern> m_fieldReferenceReplacePatterns;
-    private final Map<Pattern, String> m_macroReferenceMatcherPatterns = new HashMap<Pattern, String>();
-    private final Map<String, Pattern> m_macroReferenceReplacePatterns = new HashMap<String, Pattern>();
+    static final String[] FIELDS = { "name", "version", "release", "buildrequires", "requires",
+                                     "summary", "license", "vendor", "packager", "provides",
+                                     "url", "source[0-9]+", "group", "buildRoot", "buildArch",
+                                     "autoreqprov", "prefix", };
+
+    private static final Pattern MACRO_DEFINITION_PATTERN = Pattern.compile("^%(define|global)\\s.*");
+    private static final Pattern MACRO_UNDEFINITION_PATTERN = Pattern.compile("^%undefine\\s+(\\S+).*");
+    private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s");
+    private static final Pattern LIST_SEPARATOR_PATTERN = Pattern.compile("[\\s,]+");
+
+    /** 
+     * Case insensitive patterns that match each of the fields, used by the {@link Classifier#REGEX} classifier. 
+     * They are held by a class of their own so that they are only compiled if that classifier is used.
+     */
+    private static final class FieldPatterns {
+        private static final Map<Pattern, String> PATTERNS;
+
+        static {
+            // Take the list of strings and turn them into case insensitive pattern matchers
+            Map<Pattern, String> fieldRegexs = new HashMap<Pattern, String>();
+            for (String field : FIELDS) {
+                StringBuilder fieldRegex = new StringBuilder("^");
+                fieldRegex.append("(");
+                for (int i = 0; i < field.length(); ++i) {
+                    char ch = field.charAt(i);
+                    if (Character.isLetter(ch)) {
+                        fieldRegex.append(String.format("[%c%c]", Character.toLowerCase(ch), Character.toUpperCase(ch)));
+                    } else {
+                        fieldRegex.append(ch);
+                    }
+                }
+                fieldRegex.append("):(.*)");
+                fieldRegexs.put(Pattern.compile(fieldRegex.toString()), field);
+            }
+            PATTERNS = Collections.unmodifiableMap(fieldRegexs);
+        }
+    }
     
-    /** The path of the spec file to parse */
+    /** The path of the spec file to parse, or null if the parser is not bound to a file */
     private final String m_specFilePath;
 
+    /** How the lines of the spec file are classified */
+    private final Classifier m_classifier;
+
+    /** The charset used to decode spec files read from a path */
+    private final Charset m_charset;
+
+    /** Receives the metrics of each parse, or null if they are not recorded */
+    private final RpmSpecParseMonitor m_monitor;
+
+    /** The macros defined by the caller, as if they were defined before the start of every spec file */
+    private final ImmutableMap<String, String> m_defines;
+
+    /** The system macros, which the macros defined by the caller take precedence over */
+    private final MacroTable m_macros;
+
     /**
      * Create a parser that will parse an RPM spec file.
      *  
@@ -72,158 +139,816 @@ public class RpmSpecParser {
      * @return a parser ready to parse the file.
      */
     public static RpmSpecParser createParser(String specFilePath) {
-        return new RpmSpecParser(specFilePath);
+        return new RpmSpecParser(specFilePath, Classifier.SCANNER, StandardCharsets.UTF_8, null, ImmutableMap.<String, String>of(),
+                                 MacroTable.EMPTY);
+    }
+
+    /**
+     * Create a parser that will parse an RPM spec file, classifying the lines in a particular way.
+     * Both classifiers produce the same results, the choice allows them to be compared.
+     *  
+     * @param specFilePath the patch of the spec file to parse.
+     * @param classifier how to classify the lines of the spec file.
+     * @return a parser ready to parse the file.
+     */
+    public static RpmSpecParser createParser(String specFilePath, Classifier classifier) {
+        return new RpmSpecParser(specFilePath, classifier, StandardCharsets.UTF_8, null, ImmutableMap.<String, String>of(),
+                                 MacroTable.EMPTY);
+    }
+
+    /**
+     * Create a parser that is not bound to any one spec file. Use {@link #parse(Path)} or {@link #parse(Reader)}
+     * to parse spec files with it. The parser can be shared and used from many threads.
+     *  
+     * @return a parser ready to parse any number of files.
+     */
+    public static RpmSpecParser createParser() {
+        return new RpmSpecParser(null, Classifier.SCANNER, StandardCharsets.UTF_8, null, ImmutableMap.<String, String>of(),
+                                 MacroTable.EMPTY);
+    }
+
+    /**
+     * Create a parser that is not bound to any one spec file, classifying the lines in a particular way.
+     *  
+     * @param classifier how to classify the lines of the spec files.
+     * @return a parser ready to parse any number of files.
+     */
+    public static RpmSpecParser createParser(Classifier classifier) {
+        return new RpmSpecParser(null, classifier, StandardCharsets.UTF_8, null, ImmutableMap.<String, String>of(),
+                                 MacroTable.EMPTY);
     }
     
     /** Private constructor */
-    private RpmSpecParser(String specFilePath) {
+    private RpmSpecParser(String specFilePath, Classifier classifier, Charset charset, RpmSpecParseMonitor monitor,
+                          ImmutableMap<String, String> defines, MacroTable macros) {
+        if (classifier == null) {
+            throw new IllegalArgumentException("classifier must not be null");
+        }
+        if (charset == null) {
+            throw new IllegalArgumentException("charset must not be null");
+        }
         m_specFilePath = specFilePath;
+        m_classifier = classifier;
+        m_charset = charset;
+        m_monitor = monitor;
+        m_defines = defines;
+        m_macros = macros;
+    }
 
-        // Take the list of strings and turn them into case insensitive pattern matchers
-        Map<Pattern, String> fieldRegexs = new HashMap<Pattern, String>();
-        Map<Pattern, String> macroMatchRegexs = new HashMap<Pattern, String>();
-        Map<String, Pattern> macroReplaceRegexs = new HashMap<String, Pattern>();
-        for (String field : FIELDS) {
-            StringBuilder fieldRegex = new StringBuilder("^");
-            StringBuilder macroMatchRegex = new StringBuilder(".*%\\{");
-            StringBuilder macroReplaceRegex = new StringBuilder("%\\{");
-            fieldRegex.append("(");
-            for (int i = 0; i < field.length(); ++i) {
-                char ch = field.charAt(i);
-                if (Character.isLetter(ch)) {
-                    String regex = String.format("[%c%c]", Character.toLowerCase(ch), Character.toUpperCase(ch));
-                    fieldRegex.append(regex);
-                    macroMatchRegex.append(regex);
-                    macroReplaceRegex.append(regex);
-                } else {
-                    fieldRegex.append(ch);
-                    macroMatchRegex.append(ch);
-                    macroReplaceRegex.append(ch);
-                }
-            }
-            fieldRegex.append("):(.*)");
-            macroMatchRegex.append("\\}.*");
-            macroReplaceRegex.append("\\}");
-            fieldRegexs.put(Pattern.compile(fieldRegex.toString()), field);
-            macroMatchRegexs.put(Pattern.compile(macroMatchRegex.toString()), field);
-            macroReplaceRegexs.put(macroMatchRegex.toString(), Pattern.compile(macroReplaceRegex.toString()));
+    /**
+     * Create a copy of this parser that decodes spec files with a different charset. Spec files are 
+     * decoded as UTF-8 unless another charset is chosen.
+     *
+     * @param charset the charset of the spec files.
+     * @return a parser that uses the charset.
+     */
+    public RpmSpecParser withCharset(Charset charset) {
+        return new RpmSpecParser(m_specFilePath, m_classifier, charset, m_monitor, m_defines, m_macros);
+    }
+
+    /** @return the charset used to decode spec files. */
+    public Charset getCharset() {
+        return m_charset;
+    }
+
+    /**
+     * Create a copy of this parser that records the metrics of each parse of a spec file into its fields, and
+     * passes them to a monitor. The metrics are not recorded unless a monitor is given, and recording them 
+     * costs nothing until then.
+     *
+     * @param monitor receives the metrics, which must be thread safe if the parser is shared. Null stops recording.
+     * @return a parser that records metrics.
+     */
+    public RpmSpecParser withMonitor(RpmSpecParseMonitor monitor) {
+        return new RpmSpecParser(m_specFilePath, m_classifier, m_charset, monitor, m_defines, m_macros);
+    }
+
+    /**
+     * Create a copy of this parser with macros defined as if by <code>rpmbuild --define</code>, such as 
+     * <code>_arch</code>, <code>_os</code> or <code>dist</code>. They are used to evaluate conditionals and
+     * to expand references, but are not part of the results. A macro defined by the spec file takes precedence.
+     *
+     * @param defines the names and values of the macros, which replace any defined earlier.
+     * @return a parser that uses the macros.
+     */
+    public RpmSpecParser withDefines(Map<String, String> defines) {
+        return new RpmSpecParser(m_specFilePath, m_classifier, m_charset, m_monitor, ImmutableMap.copyOf(defines), m_macros);
+    }
+
+    /** @return the macros defined by the caller. */
+    public Map<String, String> getDefines() {
+        return m_defines;
+    }
+
+    /**
+     * Create a copy of this parser that knows the system macros of a table, such as one loaded from 
+     * <code>/usr/lib/rpm/macros</code>. The table is shared by every parse rather than copied, and the macros 
+     * that a spec file defines or undefines only hide those of the table for the rest of that spec file.
+     * The macros given to {@link #withDefines(Map)} take precedence over the table.
+     *
+     * @param macros the system macros.
+     * @return a parser that uses the macros.
+     */
+    public RpmSpecParser withMacros(MacroTable macros) {
+        if (macros == null) {
+            throw new IllegalArgumentException("macros must not be null");
         }
-        m_fieldPatterns = Collections.unmodifiableMap(fieldRegexs);
-        m_fieldReferenceMatcherPatterns = Collections.unmodifiableMap(macroMatchRegexs);
-        m_fieldReferenceReplacePatterns = Collections.unmodifiableMap(macroReplaceRegexs);
+        return new RpmSpecParser(m_specFilePath, m_classifier, m_charset, m_monitor, m_defines, macros);
+    }
+
+    /** @return the system macros. */
+    public MacroTable getMacros() {
+        return m_macros;
     }
 
     /**
      * Parse the RPM spec file. Each of the supported fields is placed into the {@link Properties} returned.
      * @return the {@link Properties} of the spec file. 
      * @throws FileNotFoundException if the path of the spec file could not be opened for reading.
+     * @throws IllegalStateException if the parser was not created with the path of a spec file.
      */
     public Multimap<String, String> parse() throws FileNotFoundException {
-        Multimap<String, String> properties = ArrayListMultimap.create();
-        Scanner scanner = new Scanner(new File(m_specFilePath));
-        while (scanner.hasNextLine()) {
-            String line = scanner.nextLine().trim();
-            if (line.startsWith("#")) {
-                // Discard comments
-                continue;
-            }
-            
-            // Examine the line to see if it's a field 
-            for (Map.Entry<Pattern, String> entry : m_fieldPatterns.entrySet()) {
+        if (m_specFilePath == null) {
+            throw new IllegalStateException("The parser is not bound to a spec file, use parse(Path) or parse(Reader)");
+        }
+        try {
+            return parse(Paths.get(m_specFilePath));
+        }
+        catch (NoSuchFileException | AccessDeniedException e) {
+            FileNotFoundException notFound = new FileNotFoundException(m_specFilePath);
+            notFound.initCause(e);
+            throw notFound;
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Failed to read RPM spec file " + m_specFilePath, e);
+        }
+    }
+
+    /**
+     * Parse an RPM spec file. Each of the supported fields is placed into the multimap returned.
+     * The file is read through a channel and is always closed before this method returns.
+     * @param specFile the path of the spec file.
+     * @return the fields and macros of the spec file. 
+     * @throws IOException if the spec file could not be read.
+     */
+    public Multimap<String, String> parse(Path specFile) throws IOException {
+        long start = loadStart();
+        try (SpecLineSource lines = ChannelLineSource.open(specFile, m_charset)) {
+            return parse(lines, loadNanos(start));
+        }
+    }
+
+    /**
+     * Parse the contents of an RPM spec file that have already been read into memory.
+     * @param contents the bytes of the spec file, between the position and the limit.
+     * @return the fields and macros of the spec file. 
+     * @throws IOException if the contents could not be decoded.
+     */
+    Multimap<String, String> parse(ByteBuffer contents) throws IOException {
+        try (SpecLineSource lines = ChannelLineSource.wrap(contents, m_charset)) {
+            return parse(lines, 0);
+        }
+    }
+
+    /**
+     * Parse the text of an RPM spec file. Each of the supported fields is placed into the multimap returned.
+     * The reader is not closed.
+     * @param specReader the text of the spec file.
+     * @return the fields and macros of the spec file. 
+     * @throws IOException if the text could not be read.
+     */
+    public Multimap<String, String> parse(Reader specReader) throws IOException {
+        return parse(new ReaderLineSource(specReader), 0);
+    }
+
+    /**
+     * Parse an RPM spec file, passing its contents to a listener as each line is classified. Nothing is collected,
+     * and the parse stops as soon as the listener returns false, so only the lines up to that point are decoded
+     * and classified.
+     * @param specFile the path of the spec file.
+     * @param listener receives the contents of the spec file.
+     * @throws IOException if the spec file could not be read.
+     */
+    public void parse(Path specFile, RpmSpecListener listener) throws IOException {
+        try (SpecLineSource lines = ChannelLineSource.open(specFile, m_charset)) {
+            ExpandingHandler handler = new ExpandingHandler(listener);
+            classify(lines, handler.m_position, handler);
+        }
+    }
+
+    /**
+     * Parse the text of an RPM spec file, passing its contents to a listener as each line is classified.
+     * Reading stops as soon as the listener returns false. The reader is not closed.
+     * @param specReader the text of the spec file.
+     * @param listener receives the contents of the spec file.
+     * @throws IOException if the text could not be read.
+     */
+    public void parse(Reader specReader, RpmSpecListener listener) throws IOException {
+        ExpandingHandler handler = new ExpandingHandler(listener);
+        classify(new ReaderLineSource(specReader), handler.m_position, handler);
+    }
+
+    /**
+     * Open an RPM spec file for lazy parsing. Lines are only read and classified when a key is asked for that 
+     * has not been found yet, and each value is only expanded the first time it is asked for.
+     * @param specFile the path of the spec file.
+     * @return the lazily parsed spec file, which should be closed if it is not read to the end.
+     * @throws IOException if the spec file could not be read.
+     */
+    public RpmSpecLazyResult parseLazily(Path specFile) throws IOException {
+        return new RpmSpecLazyResult(this, ChannelLineSource.open(specFile, m_charset));
+    }
+
+    /**
+     * Open the text of an RPM spec file for lazy parsing. The reader is not closed.
+     * @param specReader the text of the spec file.
+     * @return the lazily parsed spec file.
+     */
+    public RpmSpecLazyResult parseLazily(Reader specReader) {
+        return new RpmSpecLazyResult(this, new ReaderLineSource(specReader));
+    }
+
+    /**
+     * Parse an RPM spec file into compact properties, which is the better choice for keeping the results of many
+     * spec files in memory. The properties are the same as those returned by {@link #parse(Path)}.
+     * @param specFile the path of the spec file.
+     * @return the fields and macros of the spec file.
+     * @throws IOException if the spec file could not be read.
+     */
+    public RpmSpecProperties parseProperties(Path specFile) throws IOException {
+        long start = loadStart();
+        try (SpecLineSource lines = ChannelLineSource.open(specFile, m_charset)) {
+            return parseProperties(lines, loadNanos(start));
+        }
+    }
+
+    /**
+     * Parse the contents of an RPM spec file that have already been read into memory into compact properties.
+     * @param contents the bytes of the spec file, between the position and the limit.
+     * @return the fields and macros of the spec file.
+     * @throws IOException if the contents could not be decoded.
+     */
+    RpmSpecProperties parseProperties(ByteBuffer contents) throws IOException {
+        try (SpecLineSource lines = ChannelLineSource.wrap(contents, m_charset)) {
+            return parseProperties(lines, 0);
+        }
+    }
+
+    /**
+     * Parse the text of an RPM spec file into compact properties. The reader is not closed.
+     * @param specReader the text of the spec file.
+     * @return the fields and macros of the spec file.
+     * @throws IOException if the text could not be read.
+     */
+    public RpmSpecProperties parseProperties(Reader specReader) throws IOException {
+        return parseProperties(new ReaderLineSource(specReader), 0);
+    }
+
+    /**
+     * Parse an RPM spec file into a model of its sections. The tags of the main package and the macros are 
+     * available as they are from {@link #parse(Path)}, and the tags of each subpackage are kept separately.
+     * The whole file is decoded once and the sections refer to ranges of that text rather than copying it.
+     * @param specFile the path of the spec file.
+     * @return the sections and packages of the spec file.
+     * @throws IOException if the spec file could not be read.
+     */
+    public RpmSpecDocument parseDocument(Path specFile) throws IOException {
+        return new SpecDocumentBuilder(this).build(new String(Files.readAllBytes(specFile), m_charset));
+    }
+
+    /**
+     * Parse the text of an RPM spec file into a model of its sections. The reader is not closed.
+     * @param specReader the text of the spec file.
+     * @return the sections and packages of the spec file.
+     * @throws IOException if the text could not be read.
+     */
+    public RpmSpecDocument parseDocument(Reader specReader) throws IOException {
+        return new SpecDocumentBuilder(this).build(CharStreams.toString(specReader));
+    }
+
+    /** @return the time a spec file starts to be loaded, only taken if there is a monitor to report it to. */
+    private long loadStart() {
+        return (m_monitor == null) ? 0 : System.nanoTime();
+    }
+
+    /** @return the time taken to load a spec file since the start. */
+    private long loadNanos(long start) {
+        return (m_monitor == null) ? 0 : System.nanoTime() - start;
+    }
+
+    private Multimap<String, String> parse(SpecLineSource lines, long loadNanos) throws IOException {
+        ListMultimap<String, String> properties = ArrayListMultimap.create();
+        Position position = newPosition(properties);
+        ParseRecorder recorder = collect(lines, loadNanos, position, properties);
+        if (recorder == null) {
+            expandReferences(properties, position);
+            return properties;
+        }
+        long start = System.nanoTime();
+        int steps = expandReferences(properties, position);
+        recorder.expanded(System.nanoTime() - start, steps);
+        m_monitor.parsed(recorder.getMetrics(lines.getSize()));
+        return properties;
+    }
+
+    private RpmSpecProperties parseProperties(SpecLineSource lines, long loadNanos) throws IOException {
+        ListMultimap<String, String> properties = ArrayListMultimap.create();
+        Position position = newPosition(properties);
+        ParseRecorder recorder = collect(lines, loadNanos, position, properties);
+        MacroExpander expander = newExpander(properties, position);
+        if (recorder == null) {
+            return RpmSpecProperties.expand(properties, expander);
+        }
+        long start = System.nanoTime();
+        RpmSpecProperties result = RpmSpecProperties.expand(properties, expander);
+        recorder.expanded(System.nanoTime() - start, expander.getSteps());
+        m_monitor.parsed(recorder.getMetrics(lines.getSize()));
+        return result;
+    }
+
+    /**
+     * Classify the lines of a spec file, collecting the unexpanded tags of the main package and the macros.
+     * @param lines the lines of the spec file.
+     * @param loadNanos the time taken to load the spec file before its lines are read, zero if it was already
+     *        in memory or is read as the lines are.
+     * @param position the position of the parse, created for the properties.
+     * @param properties receives the tags and macros.
+     * @return the recorder of the metrics of the parse, or null if they are not being recorded.
+     */
+    private ParseRecorder collect(SpecLineSource lines, long loadNanos, final Position position, 
+                                  final ListMultimap<String, String> properties) 
+            throws IOException {
+        SpecLineHandler collector = new SpecLineHandler() {
+            @Override
+            public boolean line(String line) {
+                return true;
+            }
+
+            @Override
+            public boolean tag(String key, String value) {
+                // The tags of subpackages are only kept by parseDocument()
+                if (!position.inSubpackage()) {
+                    properties.put(key, value);
+                }
+                return true;
+            }
+
+            @Override
+            public boolean macroDefinition(String name, String value) {
+                assert !properties.containsKey(name);
+                properties.put(name, value);
+                return true;
+            }
+
+            @Override
+            public boolean macroUndefinition(String name) {
+                // The values are expanded once the whole file is read, so every reference sees the macro as undefined
+                properties.removeAll(name);
+                return true;
+            }
+
+            @Override
+            public boolean sectionStart(String section, String arguments) {
+                return true;
+            }
+        };
+        if (m_monitor == null) {
+            classify(lines, position, collector);
+            return null;
+        }
+        ParseRecorder recorder = new ParseRecorder(collector, loadNanos);
+        recorder.classify(this, lines, position);
+        return recorder;
+    }
+
+    /** Classify each line, stopping early if the handler asks to */
+    private void classify(SpecLineSource lines, Position position, SpecLineHandler handler) throws IOException {
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (!classifyLine(line, position, handler)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Classify one line of a spec file. Tags are only recognised in the preamble and in <code>%package</code>
+     * sections, the other sections are scanned for macro definitions and the start of the next section only.
+     * The lines inside a conditional block that is not active are not classified at all.
+     * @param line the line as it appears in the spec file.
+     * @param position the section reached by the parse, which is moved on when the line starts a section.
+     * @param handler receives the classified line.
+     * @return false if the handler asked to stop parsing.
+     */
+    boolean classifyLine(String line, Position position, SpecLineHandler handler) {
+        if (!handler.line(line)) {
+            return false;
+        }
+        line = line.trim();
+        if (line.startsWith("#")) {
+            // Discard comments
+            return true;
+        }
+        if (line.startsWith("%") && position.conditional(line)) {
+            return true;
+        }
+        if (!position.isActive()) {
+            return true;
+        }
+        boolean tags = position.inTags();
+        if (!tags && !line.startsWith("%")) {
+            // Scripts, file lists and change log entries
+            return true;
+        }
+        if (m_classifier == Classifier.REGEX) {
+            return classifyWithPatterns(line, tags, position, handler);
+        }
+        return classifyWithScanner(line, tags, position, handler);
+    }
+
+    /** Classify a line by scanning its tag and looking it up in a table of the fields */
+    private static boolean classifyWithScanner(String line, boolean tags, Position position, SpecLineHandler handler) {
+        int colon = tags ? line.indexOf(':') : -1;
+        if (colon > 0) {
+            String key = SpecTagScanner.tagKey(line, colon);
+            if (key != null) {
+                return handler.tag(key, line.substring(colon + 1).trim());
+            }
+        }
+        if (line.startsWith("%")) {
+            String[] definition = SpecTagScanner.macroDefinition(line);
+            if (definition != null) {
+                position.defined(definition[0]);
+                return handler.macroDefinition(definition[0], definition[1]);
+            }
+            String undefined = SpecTagScanner.macroUndefinition(line);
+            if (undefined != null) {
+                position.undefined(undefined);
+                return handler.macroUndefinition(undefined);
+            }
+            return sectionStart(line, position, handler);
+        }
+        return true;
+    }
+
+    /** Classify a line by matching it against the regular expression of every field */
+    private static boolean classifyWithPatterns(String line, boolean tags, Position position, SpecLineHandler handler) {
+        // Examine the line to see if it's a field 
+        if (tags) {
+            for (Map.Entry<Pattern, String> entry : FieldPatterns.PATTERNS.entrySet()) {
                 Matcher matcher = entry.getKey().matcher(line);
                 if (matcher.matches() && matcher.groupCount() > 1) {
                     // TODO handle multiple values
-                    properties.put(matcher.group(1).toLowerCase(), matcher.group(2).trim());
+                    if (!handler.tag(matcher.group(1).toLowerCase(), matcher.group(2).trim())) {
+                        return false;
+                    }
                 }
             }
-            // Examine the line to see if it's a macro definition 
-            if (line.matches(MACRO_DEFINITION_PATTERN)) {
-                String[] words = line.split("\\s");
-                if (words != null && words.length > 2) {
-                    StringBuilder value = new StringBuilder();
-                    for (int i = 2; i < words.length; ++i) {
-                        if (i != 2) {
-                            value.append(" ");
-                        }
-                        value.append(words[i]);
-                    }
-                    assert !properties.containsKey(words[1]);
-                    properties.put(words[1], value.toString().trim());
-                    // Add a matcher pattern for it so that any references to it can be expanded
-                    StringBuilder macroMatchRegex = new StringBuilder(".*%\\{");
-                    StringBuilder macroReplaceRegex = new StringBuilder("%\\{");
-                    for (int i = 0; i < words[1].length(); ++i) {
-                        char ch = words[1].charAt(i);
-                        if (Character.isLetter(ch)) {
-                            String regex = String.format("[%c%c]", Character.toLowerCase(ch), Character.toUpperCase(ch));
-                            macroMatchRegex.append(regex);
-                            macroReplaceRegex.append(regex);
-                        } else {
-                            macroMatchRegex.append(ch);
-                            macroReplaceRegex.append(ch);
-                        }
+        }
+        // Examine the line to see if it's a macro definition 
+        if (MACRO_DEFINITION_PATTERN.matcher(line).matches()) {
+            String[] words = WHITESPACE_PATTERN.split(line);
+            if (words != null && words.length > 2) {
+                StringBuilder value = new StringBuilder();
+                for (int i = 2; i < words.length; ++i) {
+                    if (i != 2) {
+                        value.append(" ");
                     }
-                    macroMatchRegex.append("\\}.*");
-                    macroReplaceRegex.append("\\}");
-                    m_macroReferenceMatcherPatterns.put(Pattern.compile(macroMatchRegex.toString()), words[1]);
-                    m_macroReferenceReplacePatterns.put(macroMatchRegex.toString(), Pattern.compile(macroReplaceRegex.toString()));
+                    value.append(words[i]);
                 }
+                position.defined(words[1]);
+                return handler.macroDefinition(words[1], value.toString().trim());
             }
         }
-        expandReferences(properties);
-        return properties;
+        Matcher undefinition = MACRO_UNDEFINITION_PATTERN.matcher(line);
+        if (undefinition.matches()) {
+            position.undefined(undefinition.group(1));
+            return handler.macroUndefinition(undefinition.group(1));
+        }
+        return sectionStart(line, position, handler);
+    }
+
+    /** Move the position on and tell the handler if the line starts a section */
+    private static boolean sectionStart(String line, Position position, SpecLineHandler handler) {
+        String section = SpecTagScanner.sectionName(line);
+        if (section == null) {
+            return true;
+        }
+        position.m_section = section;
+        return handler.sectionStart(section, line.substring(section.length() + 1).trim());
     }
     
     /** 
      * The values of fields and macros can themselves contain the values of other directives. Search through the 
-     * properties and replace these values if they are present.
+     * properties and replace these values if they are present. References are expanded recursively, so a macro
+     * may refer to a field which in turn refers to another macro. A reference that does not match the name of a 
+     * field or macro exactly is tried again in lower case, as the fields are stored in lower case.
      * 
      * @param properties the properties to modify by expanding any values
+     * @param position the position at the end of the parse that found the properties.
+     * @return the number of references that were expanded.
      */
-    private void expandReferences(Multimap<String, String> properties) {
+    int expandReferences(ListMultimap<String, String> properties, Position position) {
 
-        Map<Pattern, String> matcherPatterns = new HashMap<Pattern, String>();
-        matcherPatterns.putAll(m_fieldReferenceMatcherPatterns);
-        matcherPatterns.putAll(m_macroReferenceMatcherPatterns);
+        MacroExpander expander = newExpander(properties, position);
+
+        // Expand every value before replacing any, so that references always see the values as written
+        List<String> expanded = new ArrayList<String>(properties.size());
+        for (String key : properties.keySet()) {
+            for (String value : properties.get(key)) {
+                expanded.add(expander.expand(value));
+            }
+        }
+        Iterator<String> values = expanded.iterator();
+        for (String key : properties.keySet()) {
+            List<String> keyValues = properties.get(key);
+            for (int i = 0; i < keyValues.size(); ++i) {
+                keyValues.set(i, values.next());
+            }
+        }
+        return expander.getSteps();
+    }
 
-        Map<String, Pattern> replacePatterns = new HashMap<String, Pattern>();
-        replacePatterns.putAll(m_fieldReferenceReplacePatterns);
-        replacePatterns.putAll(m_macroReferenceReplacePatterns);
+    /** Create an expander of the references to the fields and macros of a spec file */
+    private MacroExpander newExpander(final Multimap<String, String> properties, final Position position) {
+        return new MacroExpander(new MacroExpander.Symbols() {
+            @Override
+            public String valueOf(String name) {
+                return lookup(properties, position, name);
+            }
+        });
+    }
 
-        Multimap<String, String> newProperties = ArrayListMultimap.create();
-        for (Entry<String, String> property : properties.entries()) {
-            String newValue = expandReferences(property.getValue().toString(), properties, matcherPatterns, replacePatterns);
-            newProperties.put(property.getKey().toString(), newValue);
+    /** 
+     * Look up the value of a field or macro. The names of the fields and macros of the spec file are matched 
+     * regardless of case, so <code>%{who}</code> refers to <code>%define Who</code>, preferring the exact name 
+     * and then the lower case one in which the fields are stored. Failing that the macros defined by the caller 
+     * and the system macros are tried, by their exact name, unless the spec file undefined it.
+     */
+    String lookup(Multimap<String, String> properties, Position position, String name) {
+        String value = getProperty(properties, name);
+        if (value == null) {
+            String lowerCaseName = name.toLowerCase();
+            if (!lowerCaseName.equals(name)) {
+                value = getProperty(properties, lowerCaseName);
+            }
+        }
+        if (value == null) {
+            for (String key : properties.keySet()) {
+                if (key.equalsIgnoreCase(name)) {
+                    value = getProperty(properties, key);
+                    break;
+                }
+            }
         }
-        properties.clear();
-        properties.putAll(newProperties);
+        return (value == null) ? position.globalValue(name) : value;
+    }
+
+    /** Look up a macro defined by the caller or, failing that, a system macro */
+    private String globalValue(String name) {
+        String value = m_defines.get(name);
+        return (value == null) ? m_macros.get(name) : value;
+    }
+
+    /**
+     * Create the position of a new parse.
+     * @param definitions the tags and macros found so far by the parse, which conditionals are evaluated against.
+     * @return the position at the start of a spec file.
+     */
+    Position newPosition(ListMultimap<String, String> definitions) {
+        return new Position(this, definitions);
     }
 
     /** 
-     * The values of fields and macros can themselves contain the values of other directives. Search through the 
-     * property value and replace these values if they are present.
-     *
-     * @param propertyValue the value to search for any replacements
-     * @param properties the properties to use to expand any values
-     * @param matcherPatterns patterns to find references to fields or macros
-     * @param replacePatterns patters to replace references to fields or macros with the values
+     * The section that a parse has reached and the conditional blocks it is inside, which decide how the lines 
+     * are classified. The expression of a conditional is only evaluated when the block it is in is active, so 
+     * the conditionals nested inside a block that is skipped cost no more than finding where they end.
+     */
+    static final class Position {
+        /** A conditional block that has been opened by %if and not yet closed by %endif */
+        private static final class Conditional {
+            /** True if the block that contains this one is active */
+            final boolean m_parentActive;
+            /** True once one of the branches has been taken */
+            boolean m_taken;
+            /** True if the lines of the current branch are classified */
+            boolean m_active;
+
+            Conditional(boolean parentActive, boolean value) {
+                m_parentActive = parentActive;
+                m_taken = value;
+                m_active = parentActive && value;
+            }
+        }
+
+        private final RpmSpecParser m_parser;
+
+        /** The macros and fields that conditionals are evaluated against */
+        private final MacroExpander.Symbols m_symbols;
+
+        /** The name of the current section, or null in the preamble */
+        private String m_section;
+
+        /** The open conditional blocks, the innermost last */
+        private final List<Conditional> m_conditionals = new ArrayList<Conditional>();
+
+        /** The macros undefined by the spec file, which hide those of the caller and the system until redefined */
+        private final Set<String> m_undefined = new HashSet<String>();
+
+        Position(RpmSpecParser parser, final ListMultimap<String, String> definitions) {
+            m_parser = parser;
+            m_symbols = new MacroExpander.Symbols() {
+                @Override
+                public String valueOf(String name) {
+                    // The latest definition is the one in force, even for a name with several values
+                    List<String> values = definitions.get(name);
+                    if (values.isEmpty()) {
+                        values = definitions.get(name.toLowerCase());
+                    }
+                    return values.isEmpty() ? globalValue(name) : values.get(values.size() - 1);
+                }
+            };
+        }
+
+        /**
+         * @param name the name of a macro that is not defined by the spec file.
+         * @return the value given by the caller or the system, or null if there is none or the spec file undefined it.
+         */
+        String globalValue(String name) {
+            return m_undefined.contains(name) ? null : m_parser.globalValue(name);
+        }
+
+        /** Note that the spec file has defined a macro */
+        void defined(String name) {
+            if (!m_undefined.isEmpty()) {
+                m_undefined.remove(name);
+            }
+        }
+
+        /** Note that the spec file has undefined a macro */
+        void undefined(String name) {
+            m_undefined.add(name);
+        }
+
+        /** @return true if the lines are classified, which they are unless a conditional block is being skipped. */
+        boolean isActive() {
+            return m_conditionals.isEmpty() || m_conditionals.get(m_conditionals.size() - 1).m_active;
+        }
+
+        /**
+         * Follow a line that may be a conditional directive such as <code>%if</code>, <code>%else</code> or 
+         * <code>%endif</code>.
+         * @param line the trimmed line, which starts with %.
+         * @return true if the line was a conditional directive.
+         */
+        boolean conditional(String line) {
+            int end = 1;
+            while (end < line.length() && Character.isLetter(line.charAt(end))) {
+                ++end;
+            }
+            String directive = line.substring(1, end);
+            String argument = line.substring(end).trim();
+            Conditional innermost = m_conditionals.isEmpty() ? null : m_conditionals.get(m_conditionals.size() - 1);
+            switch (directive) {
+            case "if":
+            case "ifarch":
+            case "ifnarch":
+            case "ifos":
+            case "ifnos":
+                // Only evaluate the condition if the block it is in is active
+                boolean active = isActive();
+                m_conditionals.add(new Conditional(active, active && evaluate(directive, argument)));
+                return true;
+            case "elif":
+                if (innermost != null) {
+                    boolean value = innermost.m_parentActive && !innermost.m_taken && evaluate("if", argument);
+                    innermost.m_active = value;
+                    innermost.m_taken |= value;
+                }
+                return true;
+            case "else":
+                if (innermost != null) {
+                    innermost.m_active = innermost.m_parentActive && !innermost.m_taken;
+                    innermost.m_taken = true;
+                }
+                return true;
+            case "endif":
+                if (innermost != null) {
+                    m_conditionals.remove(m_conditionals.size() - 1);
+                }
+                return true;
+            default:
+                return false;
+            }
+        }
+
+        /** Evaluate the argument of a conditional directive */
+        private boolean evaluate(String directive, String argument) {
+            String expanded = new MacroExpander(m_symbols).expand(argument);
+            switch (directive) {
+            case "ifarch":
+                return isListed("_arch", expanded);
+            case "ifnarch":
+                return !isListed("_arch", expanded);
+            case "ifos":
+                return isListed("_os", expanded);
+            case "ifnos":
+                return !isListed("_os", expanded);
+            default:
+                return ConditionEvaluator.evaluate(expanded);
+            }
+        }
+
+        /** @return true if the value of a macro is one of a list of words separated by spaces or commas */
+        private boolean isListed(String macro, String list) {
+            String value = m_symbols.valueOf(macro);
+            if (value == null) {
+                return false;
+            }
+            value = new MacroExpander(m_symbols).expand(value);
+            for (String word : LIST_SEPARATOR_PATTERN.split(list)) {
+                if (word.equals(value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** @return the name of the current section, or null in the preamble. */
+        String getSection() {
+            return m_section;
+        }
+
+        /** @return true if tags are recognised, which they are in the preamble and in <code>%package</code> sections. */
+        boolean inTags() {
+            return m_section == null || inSubpackage();
+        }
+
+        /** @return true in a <code>%package</code> section, where the tags belong to a subpackage. */
+        boolean inSubpackage() {
+            return "package".equals(m_section);
+        }
+    }
+
+    /** 
+     * Expands the values of tags and macros using the ones that came before them, then passes them on to a 
+     * listener. Only the latest value of each name is kept, for expanding later references. The tags of 
+     * subpackages are expanded but not kept, so that references always see the tags of the main package.
      */
-    private String expandReferences(String propertyValue, Multimap<String, String> properties, 
-                                    Map<Pattern, String> matcherPatterns, 
-                                    Map<String, Pattern> replacePatterns) {
+    private final class ExpandingHandler implements SpecLineHandler {
+        private final RpmSpecListener m_listener;
+        private final ListMultimap<String, String> m_defined = ArrayListMultimap.create();
+        private final Position m_position = newPosition(m_defined);
+        private final MacroExpander m_expander;
+
+        ExpandingHandler(RpmSpecListener listener) {
+            m_listener = listener;
+            m_expander = new MacroExpander(new MacroExpander.Symbols() {
+                @Override
+                public String valueOf(String name) {
+                    return lookup(m_defined, m_position, name);
+                }
+            });
+        }
 
-        String newValue = propertyValue;
+        @Override
+        public boolean line(String line) {
+            return m_listener.line(line);
+        }
 
-        for (Map.Entry<Pattern, String> macro : matcherPatterns.entrySet()) {
-            Matcher matcher = macro.getKey().matcher(propertyValue);
-            if (matcher.matches()) {
-                Pattern replacePattern = replacePatterns.get(macro.getKey().toString());
-                newValue = newValue.replaceAll(replacePattern.toString(), getProperty(properties, macro.getValue()));
+        @Override
+        public boolean tag(String key, String value) {
+            if (m_position.inSubpackage()) {
+                return m_listener.tag(key, m_expander.expand(value));
             }
+            return m_listener.tag(key, define(key, value));
+        }
+
+        @Override
+        public boolean macroDefinition(String name, String value) {
+            return m_listener.macroDefinition(name, define(name, value));
+        }
+
+        @Override
+        public boolean macroUndefinition(String name) {
+            m_defined.removeAll(name);
+            m_expander.invalidate();
+            return true;
+        }
+
+        @Override
+        public boolean sectionStart(String section, String arguments) {
+            return m_listener.sectionStart(section, arguments);
+        }
+
+        private String define(String name, String value) {
+            String expanded = m_expander.expand(value);
+            m_defined.replaceValues(name, Collections.singletonList(value));
+            m_expander.invalidate();
+            return expanded;
         }
-        return newValue;
     }
-    
+
     String getProperty(Multimap<String, String> properties, String key) {
        Collection<String> collection = properties.get(key);
        if (collection.isEmpty())
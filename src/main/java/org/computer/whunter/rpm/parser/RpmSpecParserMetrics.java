@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * A monitor that totals the metrics of every parse and publishes the totals as an MBean. The totals are 
+ * updated without locking, so one instance can be shared by parsers used from many threads.
+ * <pre>
+ *     RpmSpecParserMetrics metrics = new RpmSpecParserMetrics();
+ *     metrics.register("build");
+ *     RpmSpecParser parser = RpmSpecParser.createParser().withMonitor(metrics);
+ * </pre>
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public class RpmSpecParserMetrics implements RpmSpecParseMonitor, RpmSpecParserMetricsMBean {
+
+    /** The domain of the names that the metrics are registered under */
+    public static final String DOMAIN = "org.computer.whunter.rpm";
+
+    private final AtomicLong m_parses = new AtomicLong();
+    private final AtomicLong m_readNanos = new AtomicLong();
+    private final AtomicLong m_classifyNanos = new AtomicLong();
+    private final AtomicLong m_expandNanos = new AtomicLong();
+    private final AtomicLong m_lines = new AtomicLong();
+    private final AtomicLong m_tags = new AtomicLong();
+    private final AtomicLong m_macros = new AtomicLong();
+    private final AtomicLong m_expansions = new AtomicLong();
+    private final AtomicLong m_bytes = new AtomicLong();
+
+    /**
+     * Register the metrics with the platform MBean server.
+     * @param name distinguishes these metrics from any others, for example the name of the tool using the parser.
+     * @return the name the metrics were registered under.
+     * @throws JMException if the metrics could not be registered, for example because the name is already taken.
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName(DOMAIN + ":type=RpmSpecParser,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    @Override
+    public void parsed(RpmSpecParseMetrics metrics) {
+        m_parses.incrementAndGet();
+        m_readNanos.addAndGet(metrics.getReadNanos());
+        m_classifyNanos.addAndGet(metrics.getClassifyNanos());
+        m_expandNanos.addAndGet(metrics.getExpandNanos());
+        m_lines.addAndGet(metrics.getLines());
+        m_tags.addAndGet(metrics.getTags());
+        m_macros.addAndGet(metrics.getMacros());
+        m_expansions.addAndGet(metrics.getExpansions());
+        if (metrics.getBytes() > 0) {
+            m_bytes.addAndGet(metrics.getBytes());
+        }
+    }
+
+    @Override
+    public long getParses() {
+        return m_parses.get();
+    }
+
+    @Override
+    public long getReadMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(m_readNanos.get());
+    }
+
+    @Override
+    public long getClassifyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(m_classifyNanos.get());
+    }
+
+    @Override
+    public long getExpandMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(m_expandNanos.get());
+    }
+
+    @Override
+    public long getLines() {
+        return m_lines.get();
+    }
+
+    @Override
+    public long getTags() {
+        return m_tags.get();
+    }
+
+    @Override
+    public long getMacros() {
+        return m_macros.get();
+    }
+
+    @Override
+    public long getExpansions() {
+        return m_expansions.get();
+    }
+
+    @Override
+    public long getBytes() {
+        return m_bytes.get();
+    }
+
+    @Override
+    public void reset() {
+        for (AtomicLong total : new AtomicLong[] { m_parses, m_readNanos, m_classifyNanos, m_expandNanos, 
+                                                   m_lines, m_tags, m_macros, m_expansions, m_bytes }) {
+            total.set(0);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+/**
+ * The JMX view of the totals kept by {@link RpmSpecParserMetrics}.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public interface RpmSpecParserMetricsMBean {
+
+    /** @return the number of spec files parsed. */
+    long getParses();
+
+    /** @return the total time spent loading spec files before their lines are read, in milliseconds. */
+    long getReadMillis();
+
+    /** @return the total time spent reading, decoding and classifying lines, in milliseconds. */
+    long getClassifyMillis();
+
+    /** @return the total time spent expanding references, in milliseconds. */
+    long getExpandMillis();
+
+    /** @return the total number of lines read. */
+    long getLines();
+
+    /** @return the total number of tags found. */
+    long getTags();
+
+    /** @return the total number of macro definitions found. */
+    long getMacros();
+
+    /** @return the total number of references expanded. */
+    long getExpansions();
+
+    /** @return the total size of the spec files whose size is known, in bytes. */
+    long getBytes();
+
+    /** Set all the totals back to zero. */
+    void reset();
+}
@@ -0,0 +1,253 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Multimap;
+
+/**
+ * The fields and macros of a spec file, held compactly for applications that keep the results of many 
+ * spec files in memory. The keys and the values are kept in arrays rather than in a map of lists. The keys
+ * of the tags are the canonical strings of {@link RpmTag}, the other keys are interned, and the values of tags 
+ * that are commonly the same in many spec files, such as licences, groups and dependencies, are shared 
+ * between results.
+ * <p>
+ * The properties are immutable and thread safe. {@link #asMultimap()} presents them as a multimap for 
+ * code written against {@link RpmSpecParser#parse(java.nio.file.Path)}.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public final class RpmSpecProperties {
+
+    /** The keys that are not tags, which are mostly the names of macros */
+    private static final Interner<String> KEYS = Interners.newWeakInterner();
+
+    /** The values of the tags that are shared between results */
+    private static final Interner<String> VALUES = Interners.newWeakInterner();
+
+    /** The distinct keys */
+    private final String[] m_keys;
+
+    /** The index in the values after the last value of each key */
+    private final int[] m_ends;
+
+    /** The values of all the keys, those of each key together */
+    private final String[] m_values;
+
+    private RpmSpecProperties(String[] keys, int[] ends, String[] values) {
+        m_keys = keys;
+        m_ends = ends;
+        m_values = values;
+    }
+
+    /**
+     * Expand the references in the values of properties as they are copied, leaving the properties unchanged.
+     * @param properties the unexpanded values.
+     * @param expander expands the references in the values.
+     * @return the expanded properties.
+     */
+    static RpmSpecProperties expand(ListMultimap<String, String> properties, MacroExpander expander) {
+        String[] keys = new String[properties.keySet().size()];
+        int[] ends = new int[keys.length];
+        String[] values = new String[properties.size()];
+        int keyIndex = 0;
+        int valueIndex = 0;
+        for (String key : properties.keySet()) {
+            RpmTag tag = RpmTag.forKey(key);
+            keys[keyIndex] = canonicalKey(key, tag);
+            for (String value : properties.get(key)) {
+                values[valueIndex++] = canonicalValue(expander.expand(value), tag);
+            }
+            ends[keyIndex++] = valueIndex;
+        }
+        return new RpmSpecProperties(keys, ends, values);
+    }
+
+    /**
+     * @param properties properties whose values have already been expanded.
+     * @return a compact copy of the properties.
+     */
+    public static RpmSpecProperties copyOf(Multimap<String, String> properties) {
+        String[] keys = new String[properties.keySet().size()];
+        int[] ends = new int[keys.length];
+        String[] values = new String[properties.size()];
+        int keyIndex = 0;
+        int valueIndex = 0;
+        for (Map.Entry<String, Collection<String>> entry : properties.asMap().entrySet()) {
+            RpmTag tag = RpmTag.forKey(entry.getKey());
+            keys[keyIndex] = canonicalKey(entry.getKey(), tag);
+            for (String value : entry.getValue()) {
+                values[valueIndex++] = canonicalValue(value, tag);
+            }
+            ends[keyIndex++] = valueIndex;
+        }
+        return new RpmSpecProperties(keys, ends, values);
+    }
+
+    /** @return the distinct keys. */
+    public List<String> getKeys() {
+        return Collections.unmodifiableList(Arrays.asList(m_keys));
+    }
+
+    /** @return the number of values of all the keys. */
+    public int size() {
+        return m_values.length;
+    }
+
+    /**
+     * @param key the name of a field in lower case, or the name of a macro.
+     * @return true if the spec file has at least one value for the key.
+     */
+    public boolean containsKey(String key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * @param key the name of a field in lower case, or the name of a macro.
+     * @return the first value of the key or null if the spec file does not define it.
+     */
+    public String get(String key) {
+        int index = indexOf(key);
+        return (index < 0) ? null : m_values[start(index)];
+    }
+
+    /**
+     * @param tag the tag.
+     * @return the first value of the tag or null if the spec file does not have it.
+     */
+    public String get(RpmTag tag) {
+        return get(tag.getKey());
+    }
+
+    /**
+     * @param key the name of a field in lower case, or the name of a macro.
+     * @return the values of the key in the order they appear, which is empty if the spec file does not define it.
+     */
+    public List<String> getAll(String key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(valuesOf(index));
+    }
+
+    /**
+     * @param tag the tag.
+     * @return the values of the tag in the order they appear, which is empty if the spec file does not have it.
+     */
+    public List<String> getAll(RpmTag tag) {
+        return getAll(tag.getKey());
+    }
+
+    /** 
+     * @return the properties as an immutable multimap, in the form returned by {@link RpmSpecParser#parse(java.nio.file.Path)}. 
+     * A new multimap is created each time, sharing the keys and values of these properties, and is not kept 
+     * so that properties held for a long time stay compact.
+     */
+    public ListMultimap<String, String> asMultimap() {
+        ImmutableListMultimap.Builder<String, String> builder = ImmutableListMultimap.builder();
+        for (int i = 0; i < m_keys.length; ++i) {
+            for (int j = start(i); j < m_ends[i]; ++j) {
+                builder.put(m_keys[i], m_values[j]);
+            }
+        }
+        return builder.build();
+    }
+
+    /** 
+     * Properties are equal if they have the same values for each key, in the same order for each key. The order 
+     * of the keys themselves is that of the map they were parsed into, so it is not compared.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof RpmSpecProperties)) {
+            return false;
+        }
+        RpmSpecProperties that = (RpmSpecProperties) other;
+        if (m_keys.length != that.m_keys.length || m_values.length != that.m_values.length) {
+            return false;
+        }
+        for (int i = 0; i < m_keys.length; ++i) {
+            int thatIndex = that.indexOf(m_keys[i]);
+            if (thatIndex < 0 || !valuesOf(i).equals(that.valuesOf(thatIndex))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        // A sum so that it does not depend on the order of the keys, as equals does not
+        int hash = 0;
+        for (int i = 0; i < m_keys.length; ++i) {
+            hash += m_keys[i].hashCode() ^ valuesOf(i).hashCode();
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return asMultimap().toString();
+    }
+
+    private int indexOf(String key) {
+        for (int i = 0; i < m_keys.length; ++i) {
+            // The keys are canonical, so most matches are the same string
+            if (m_keys[i] == key || m_keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int start(int index) {
+        return (index == 0) ? 0 : m_ends[index - 1];
+    }
+
+    private List<String> valuesOf(int index) {
+        return Arrays.asList(m_values).subList(start(index), m_ends[index]);
+    }
+
+    private static String canonicalKey(String key, RpmTag tag) {
+        return (tag != null) ? tag.getKey() : KEYS.intern(key);
+    }
+
+    private static String canonicalValue(String value, RpmTag tag) {
+        return (tag != null && tag.isShared()) ? VALUES.intern(value) : value;
+    }
+}
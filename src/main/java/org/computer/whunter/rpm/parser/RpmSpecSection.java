@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A section of a spec file, such as <code>%description</code>, <code>%install</code> or <code>%files</code>.
+ * The body of a section is not copied out of the spec file, the section refers to a range of the text of 
+ * the whole file which is shared by every section. The text and lines of the body are only created when 
+ * they are asked for, so a file list or change log of thousands of lines costs no more than its offsets.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public final class RpmSpecSection {
+
+    private final String m_name;
+    private final String m_arguments;
+    private final String m_packageName;
+
+    /** The text of the whole spec file */
+    private final String m_source;
+
+    /** The offset of the first character of the body in the source */
+    private final int m_start;
+
+    /** The offset just after the last character of the body in the source */
+    private final int m_end;
+
+    RpmSpecSection(String name, String arguments, String packageName, String source, int start, int end) {
+        m_name = name;
+        m_arguments = arguments;
+        m_packageName = packageName;
+        m_source = source;
+        m_start = start;
+        m_end = end;
+    }
+
+    /** @return the name of the section without the %, for example <code>files</code>. */
+    public String getName() {
+        return m_name;
+    }
+
+    /** @return the rest of the line that started the section, which may be empty. */
+    public String getArguments() {
+        return m_arguments;
+    }
+
+    /** 
+     * @return the full name of the package that the section belongs to, or null for the sections such as 
+     * <code>%prep</code> and <code>%changelog</code> that belong to the whole spec file. 
+     */
+    public String getPackageName() {
+        return m_packageName;
+    }
+
+    /** @return the body of the section, from the line after the one that started it up to the next section. */
+    public String getText() {
+        return m_source.substring(m_start, m_end);
+    }
+
+    /** @return the number of lines in the body of the section. */
+    public int getLineCount() {
+        int count = 0;
+        int start = m_start;
+        while (start < m_end) {
+            start = nextLine(start);
+            ++count;
+        }
+        return count;
+    }
+
+    /** @return the lines of the body of the section, without their line terminators. */
+    public List<String> getLines() {
+        if (m_start == m_end) {
+            return Collections.emptyList();
+        }
+        List<String> lines = new ArrayList<String>();
+        int start = m_start;
+        while (start < m_end) {
+            lines.add(m_source.substring(start, lineEnd(start)));
+            start = nextLine(start);
+        }
+        return lines;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("%").append(m_name);
+        if (!m_arguments.isEmpty()) {
+            text.append(' ').append(m_arguments);
+        }
+        return text.toString();
+    }
+
+    /** @return the offset of the line terminator of the line that starts at an offset, or the end of the body. */
+    private int lineEnd(int start) {
+        int end = start;
+        while (end < m_end) {
+            char ch = m_source.charAt(end);
+            if (ch == '\n' || ch == '\r') {
+                break;
+            }
+            ++end;
+        }
+        return end;
+    }
+
+    /** @return the offset of the line after the one that starts at an offset. */
+    private int nextLine(int start) {
+        int end = lineEnd(start);
+        if (end < m_end && m_source.charAt(end) == '\r' && end + 1 < m_end && m_source.charAt(end + 1) == '\n') {
+            return end + 2;
+        }
+        return Math.min(end + 1, m_end);
+    }
+}
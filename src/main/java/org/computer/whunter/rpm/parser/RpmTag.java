@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The tags of the preamble of a spec file that the parser recognises, apart from the numbered 
+ * <code>Source</code> tags whose keys are <code>source0</code>, <code>source1</code> and so on.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public enum RpmTag {
+    NAME(false),
+    VERSION(false),
+    RELEASE(false),
+    BUILDREQUIRES(true),
+    REQUIRES(true),
+    SUMMARY(false),
+    LICENSE(true),
+    VENDOR(true),
+    PACKAGER(true),
+    PROVIDES(true),
+    URL(false),
+    GROUP(true),
+    BUILDROOT(true),
+    BUILDARCH(true),
+    AUTOREQPROV(true),
+    PREFIX(true);
+
+    private static final Map<String, RpmTag> BY_KEY = new HashMap<String, RpmTag>();
+
+    static {
+        for (RpmTag tag : values()) {
+            BY_KEY.put(tag.m_key, tag);
+        }
+    }
+
+    private final String m_key;
+    private final boolean m_shared;
+
+    private RpmTag(boolean shared) {
+        m_key = name().toLowerCase();
+        m_shared = shared;
+    }
+
+    /** @return the key of the tag in the results of a parse, which is its name in lower case. */
+    public String getKey() {
+        return m_key;
+    }
+
+    /** 
+     * @return true if the values of the tag are commonly the same in many spec files, such as licences, groups 
+     * and dependencies, so they are worth sharing between the results. 
+     */
+    boolean isShared() {
+        return m_shared;
+    }
+
+    /**
+     * @param key the key of a tag in the results of a parse.
+     * @return the tag or null if the key is not the key of one of the tags.
+     */
+    public static RpmTag forKey(String key) {
+        return BY_KEY.get(key);
+    }
+}
@@ -0,0 +1,259 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+
+/**
+ * Builds an {@link RpmSpecDocument} from the text of a spec file in a single pass. The lines are found by
+ * their offsets in the text, and only the lines that can hold tags, macro definitions or the start of a 
+ * section are copied out to be classified. The lines of scripts, file lists and change logs are skipped 
+ * over, the sections just record where their bodies start and end.
+ * <p>
+ * A builder is used for one document only.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+final class SpecDocumentBuilder implements SpecLineHandler {
+
+    /** The sections that belong to the whole spec file rather than to one package */
+    private static final Set<String> SPEC_SECTIONS = new HashSet<String>(Arrays.asList(
+            "prep", "build", "install", "check", "clean", "changelog"));
+
+    /** The options of section lines that are followed by a value, such as <code>%files -f list</code> */
+    private static final Set<String> OPTIONS_WITH_VALUES = new HashSet<String>(Arrays.asList("-f", "-p", "-l"));
+
+    private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
+
+    /** A section as it is found, before the references in its arguments are expanded */
+    private static final class Section {
+        final String m_name;
+        final String m_arguments;
+        final int m_start;
+        int m_end;
+
+        /** The unexpanded tags of a <code>%package</code> section */
+        final ListMultimap<String, String> m_tags = ArrayListMultimap.create();
+
+        Section(String name, String arguments, int start) {
+            m_name = name;
+            m_arguments = arguments;
+            m_start = start;
+        }
+    }
+
+    private final RpmSpecParser m_parser;
+    /** The unexpanded tags of the main package and the macros */
+    private final ListMultimap<String, String> m_properties = ArrayListMultimap.create();
+
+    private final RpmSpecParser.Position m_position;
+
+    /** The unexpanded tags of the main package only */
+    private final ListMultimap<String, String> m_mainTags = ArrayListMultimap.create();
+
+    private final List<Section> m_sections = new ArrayList<Section>();
+    private Section m_current;
+
+    /** The offsets of the start of the line being classified and of the line after it */
+    private int m_lineStart;
+    private int m_nextLineStart;
+
+    SpecDocumentBuilder(RpmSpecParser parser) {
+        m_parser = parser;
+        m_position = parser.newPosition(m_properties);
+    }
+
+    /**
+     * Parse the text of a spec file.
+     * @param text the whole spec file.
+     * @return the document, which refers to the text.
+     */
+    RpmSpecDocument build(String text) {
+        int length = text.length();
+        int start = 0;
+        while (start < length) {
+            int end = start;
+            while (end < length && text.charAt(end) != '\n' && text.charAt(end) != '\r') {
+                ++end;
+            }
+            int next = end;
+            if (next < length) {
+                next += (text.charAt(next) == '\r' && next + 1 < length && text.charAt(next + 1) == '\n') ? 2 : 1;
+            }
+            m_lineStart = start;
+            m_nextLineStart = next;
+            if (m_position.inTags() || startsWithPercent(text, start, end)) {
+                m_parser.classifyLine(text.substring(start, end), m_position, this);
+            }
+            start = next;
+        }
+        if (m_current != null) {
+            m_current.m_end = length;
+        }
+        return resolve(text);
+    }
+
+    @Override
+    public boolean line(String line) {
+        return true;
+    }
+
+    @Override
+    public boolean tag(String key, String value) {
+        if (m_position.inSubpackage()) {
+            m_current.m_tags.put(key, value);
+        } else {
+            m_properties.put(key, value);
+            m_mainTags.put(key, value);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean macroDefinition(String name, String value) {
+        m_properties.put(name, value);
+        return true;
+    }
+
+    @Override
+    public boolean macroUndefinition(String name) {
+        m_properties.removeAll(name);
+        return true;
+    }
+
+    @Override
+    public boolean sectionStart(String section, String arguments) {
+        if (m_current != null) {
+            m_current.m_end = m_lineStart;
+        }
+        m_current = new Section(section, arguments, m_nextLineStart);
+        m_sections.add(m_current);
+        return true;
+    }
+
+    /** Expand the references in the tags and section arguments, then build the document */
+    private RpmSpecDocument resolve(String text) {
+        MacroExpander expander = new MacroExpander(new MacroExpander.Symbols() {
+            @Override
+            public String valueOf(String name) {
+                return m_parser.lookup(m_properties, m_position, name);
+            }
+        });
+        String mainName = expander.resolve("name");
+        if (mainName == null) {
+            mainName = "";
+        }
+
+        List<RpmSpecSection> sections = new ArrayList<RpmSpecSection>(m_sections.size());
+        Map<String, List<RpmSpecSection>> sectionsByPackage = new LinkedHashMap<String, List<RpmSpecSection>>();
+        Map<String, ListMultimap<String, String>> subpackageTags = new LinkedHashMap<String, ListMultimap<String, String>>();
+        sectionsByPackage.put(mainName, new ArrayList<RpmSpecSection>());
+        for (Section raw : m_sections) {
+            String packageName = null;
+            if (!SPEC_SECTIONS.contains(raw.m_name)) {
+                packageName = packageName(mainName, expander.expand(raw.m_arguments));
+                if (!sectionsByPackage.containsKey(packageName)) {
+                    sectionsByPackage.put(packageName, new ArrayList<RpmSpecSection>());
+                }
+            }
+            RpmSpecSection section = new RpmSpecSection(raw.m_name, raw.m_arguments, packageName, text, raw.m_start, raw.m_end);
+            sections.add(section);
+            if (packageName != null) {
+                sectionsByPackage.get(packageName).add(section);
+            }
+            if (raw.m_name.equals("package")) {
+                subpackageTags.put(packageName, expand(expander, raw.m_tags));
+            }
+        }
+
+        List<RpmSpecPackage> packages = new ArrayList<RpmSpecPackage>(subpackageTags.size() + 1);
+        packages.add(new RpmSpecPackage(mainName, expand(expander, m_mainTags), sectionsByPackage.get(mainName)));
+        for (Map.Entry<String, ListMultimap<String, String>> entry : subpackageTags.entrySet()) {
+            packages.add(new RpmSpecPackage(entry.getKey(), entry.getValue(), sectionsByPackage.get(entry.getKey())));
+        }
+
+        m_parser.expandReferences(m_properties, m_position);
+        return new RpmSpecDocument(m_properties, packages, sections);
+    }
+
+    private static ListMultimap<String, String> expand(MacroExpander expander, ListMultimap<String, String> tags) {
+        ListMultimap<String, String> expanded = ArrayListMultimap.create();
+        for (Map.Entry<String, String> entry : tags.entries()) {
+            expanded.put(entry.getKey(), expander.expand(entry.getValue()));
+        }
+        return expanded;
+    }
+
+    /**
+     * Work out the package that a section belongs to from its arguments. <code>-n name</code> gives the full
+     * name of the package, otherwise the first word that is not an option is appended to the name of the
+     * main package. The arguments of a trigger after <code>--</code> are ignored.
+     */
+    static String packageName(String mainName, String arguments) {
+        String[] words = WHITESPACE_PATTERN.split(arguments.trim());
+        for (int i = 0; i < words.length; ++i) {
+            String word = words[i];
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (word.equals("--")) {
+                break;
+            }
+            if (word.equals("-n")) {
+                return (i + 1 < words.length) ? words[i + 1] : mainName;
+            }
+            if (OPTIONS_WITH_VALUES.contains(word)) {
+                ++i;
+            } else if (!word.startsWith("-")) {
+                return mainName + "-" + word;
+            }
+        }
+        return mainName;
+    }
+
+    /** @return true if the first character of the line that is not white space is a % */
+    private static boolean startsWithPercent(String text, int start, int end) {
+        for (int i = start; i < end; ++i) {
+            char ch = text.charAt(i);
+            if (ch == '%') {
+                return true;
+            }
+            if (ch > ' ') {
+                return false;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A hand written scanner that classifies the lines of an RPM spec file without using regular
+ * expressions. It recognises the same tags and macro definitions as the patterns built by
+ * {@link RpmSpecParser} and produces identical keys and values for them. It also recognises
+ * the lines that start sections.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+final class SpecTagScanner {
+
+    /** The prefix of the numbered tags such as Source0, Source1 */
+    private static final String NUMBERED_FIELD_PREFIX = "source";
+
+    /** The keys of the plain fields, indexed by the length of the key */
+    private static final String[][] FIELDS_BY_LENGTH;
+
+    static {
+        // The keys of the tags are used so that the keys of every result are the same strings
+        int maxLength = 0;
+        List<String> plainFields = new ArrayList<String>();
+        for (RpmTag tag : RpmTag.values()) {
+            plainFields.add(tag.getKey());
+            maxLength = Math.max(maxLength, tag.getKey().length());
+        }
+        FIELDS_BY_LENGTH = new String[maxLength + 1][];
+        for (int length = 0; length <= maxLength; ++length) {
+            List<String> fields = new ArrayList<String>();
+            for (String field : plainFields) {
+                if (field.length() == length) {
+                    fields.add(field);
+                }
+            }
+            FIELDS_BY_LENGTH[length] = fields.toArray(new String[fields.size()]);
+        }
+    }
+
+    private static final String MACRO_DEFINITION = "%define";
+    private static final String GLOBAL_MACRO_DEFINITION = "%global";
+    private static final String MACRO_UNDEFINITION = "%undefine";
+
+    /** The names of the sections that can follow the preamble of a spec file */
+    private static final Set<String> SECTIONS = new HashSet<String>(Arrays.asList(
+            "package", "description", "prep", "build", "install", "check", "clean", "files", "changelog",
+            "pre", "post", "preun", "postun", "pretrans", "posttrans", "verifyscript",
+            "triggerprein", "triggerin", "triggerun", "triggerpostun"));
+
+    /** Static methods only */
+    private SpecTagScanner() {
+    }
+
+    /**
+     * Find the key of the tag at the start of a line.
+     *
+     * @param line the trimmed line to examine.
+     * @param colon the index of the first colon in the line.
+     * @return the lower case key of the tag or null if the text before the colon is not a known tag.
+     */
+    static String tagKey(String line, int colon) {
+        if (colon < FIELDS_BY_LENGTH.length) {
+            for (String field : FIELDS_BY_LENGTH[colon]) {
+                if (equalsIgnoreAsciiCase(line, field, field.length())) {
+                    return field;
+                }
+            }
+        }
+        int prefixLength = NUMBERED_FIELD_PREFIX.length();
+        if (colon > prefixLength && equalsIgnoreAsciiCase(line, NUMBERED_FIELD_PREFIX, prefixLength)) {
+            for (int i = prefixLength; i < colon; ++i) {
+                char ch = line.charAt(i);
+                if (ch < '0' || ch > '9') {
+                    return null;
+                }
+            }
+            return NUMBERED_FIELD_PREFIX + line.substring(prefixLength, colon);
+        }
+        return null;
+    }
+
+    /**
+     * Split a macro definition such as <code>%define who Warwick Hunter</code> into its name and value. 
+     * A <code>%global</code> definition is split in the same way.
+     *
+     * @param line the trimmed line to examine.
+     * @return an array of the name and the value or null if the line does not define a macro.
+     */
+    static String[] macroDefinition(String line) {
+        // Both directives have the same length
+        int start = MACRO_DEFINITION.length();
+        if (line.length() <= start || !(line.startsWith(MACRO_DEFINITION) || line.startsWith(GLOBAL_MACRO_DEFINITION)) 
+                || !isSpace(line.charAt(start))) {
+            return null;
+        }
+        int nameStart = start + 1;
+        int nameEnd = nameStart;
+        while (nameEnd < line.length() && !isSpace(line.charAt(nameEnd))) {
+            ++nameEnd;
+        }
+        if (nameEnd == line.length()) {
+            return null;
+        }
+
+        // Each whitespace character in the value becomes a single space, the ends are trimmed
+        StringBuilder value = new StringBuilder(line.length() - nameEnd);
+        boolean hasWord = false;
+        for (int i = nameEnd + 1; i < line.length(); ++i) {
+            char ch = line.charAt(i);
+            if (isSpace(ch)) {
+                value.append(' ');
+            } else {
+                value.append(ch);
+                hasWord = true;
+            }
+        }
+        if (!hasWord) {
+            return null;
+        }
+        return new String[] { line.substring(nameStart, nameEnd), value.toString().trim() };
+    }
+
+    /**
+     * Find the name of the macro removed by a line such as <code>%undefine dist</code>.
+     *
+     * @param line the trimmed line to examine.
+     * @return the name of the macro or null if the line does not undefine a macro.
+     */
+    static String macroUndefinition(String line) {
+        int start = MACRO_UNDEFINITION.length();
+        if (line.length() <= start || !line.startsWith(MACRO_UNDEFINITION) || !isSpace(line.charAt(start))) {
+            return null;
+        }
+        int nameStart = start + 1;
+        while (nameStart < line.length() && isSpace(line.charAt(nameStart))) {
+            ++nameStart;
+        }
+        int nameEnd = nameStart;
+        while (nameEnd < line.length() && !isSpace(line.charAt(nameEnd))) {
+            ++nameEnd;
+        }
+        return (nameEnd > nameStart) ? line.substring(nameStart, nameEnd) : null;
+    }
+
+    /**
+     * Find the name of the section started by a line such as <code>%files -n foo</code>.
+     *
+     * @param line the trimmed line to examine.
+     * @return the name of the section without the % or null if the line does not start a section.
+     */
+    static String sectionName(String line) {
+        if (line.length() < 2 || line.charAt(0) != '%') {
+            return null;
+        }
+        int end = 1;
+        while (end < line.length() && !isSpace(line.charAt(end))) {
+            ++end;
+        }
+        String name = line.substring(1, end);
+        return SECTIONS.contains(name) ? name : null;
+    }
+
+    /** Compare the start of the line to a lower case name, ignoring the case of ASCII letters only */
+    private static boolean equalsIgnoreAsciiCase(String line, String lowerCaseName, int length) {
+        for (int i = 0; i < length; ++i) {
+            char ch = line.charAt(i);
+            if (ch >= 'A' && ch <= 'Z') {
+                ch = (char) (ch + ('a' - 'A'));
+            }
+            if (ch != lowerCaseName.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** The characters matched by \s in a regular expression */
+    private static boolean isSpace(char ch) {
+        return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\u000B' || ch == '\f' || ch == '\r';
+    }
+}
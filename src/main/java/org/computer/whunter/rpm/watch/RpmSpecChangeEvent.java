@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.watch;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.computer.whunter.rpm.parser.RpmSpecProperties;
+
+/**
+ * A change to a spec file seen by a {@link RpmSpecWatcher}. It holds the properties of the spec file before 
+ * and after the change and the keys of the fields and macros that were added, removed or given different 
+ * values.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public final class RpmSpecChangeEvent {
+
+    /** What happened to the spec file */
+    public enum Type {
+        /** The spec file is new, or was there when the watcher started */
+        ADDED,
+        /** The spec file was parsed again and its properties are different */
+        MODIFIED,
+        /** The spec file has gone */
+        REMOVED,
+        /** The spec file could not be parsed again, the watcher keeps its previous properties */
+        FAILED
+    }
+
+    private final Type m_type;
+    private final Path m_path;
+    private final RpmSpecProperties m_oldProperties;
+    private final RpmSpecProperties m_newProperties;
+    private final Exception m_error;
+    private final List<String> m_addedKeys;
+    private final List<String> m_removedKeys;
+    private final List<String> m_modifiedKeys;
+
+    RpmSpecChangeEvent(Type type, Path path, RpmSpecProperties oldProperties, RpmSpecProperties newProperties, Exception error) {
+        m_type = type;
+        m_path = path;
+        m_oldProperties = oldProperties;
+        m_newProperties = newProperties;
+        m_error = error;
+
+        List<String> added = new ArrayList<String>();
+        List<String> removed = new ArrayList<String>();
+        List<String> modified = new ArrayList<String>();
+        if (oldProperties != null && newProperties != null) {
+            for (String key : newProperties.getKeys()) {
+                if (!oldProperties.containsKey(key)) {
+                    added.add(key);
+                } else if (!oldProperties.getAll(key).equals(newProperties.getAll(key))) {
+                    modified.add(key);
+                }
+            }
+            for (String key : oldProperties.getKeys()) {
+                if (!newProperties.containsKey(key)) {
+                    removed.add(key);
+                }
+            }
+        } else if (newProperties != null) {
+            added.addAll(newProperties.getKeys());
+        } else if (oldProperties != null && type == Type.REMOVED) {
+            removed.addAll(oldProperties.getKeys());
+        }
+        m_addedKeys = Collections.unmodifiableList(added);
+        m_removedKeys = Collections.unmodifiableList(removed);
+        m_modifiedKeys = Collections.unmodifiableList(modified);
+    }
+
+    /** @return what happened to the spec file. */
+    public Type getType() {
+        return m_type;
+    }
+
+    /** @return the path of the spec file. */
+    public Path getPath() {
+        return m_path;
+    }
+
+    /** @return the properties before the change, or null if the spec file was added. */
+    public RpmSpecProperties getOldProperties() {
+        return m_oldProperties;
+    }
+
+    /** @return the properties after the change, or null if the spec file was removed or could not be parsed. */
+    public RpmSpecProperties getNewProperties() {
+        return m_newProperties;
+    }
+
+    /** @return the exception that prevented the spec file being parsed, or null if it did not fail. */
+    public Exception getError() {
+        return m_error;
+    }
+
+    /** @return the keys of the fields and macros that the spec file did not have before the change. */
+    public List<String> getAddedKeys() {
+        return m_addedKeys;
+    }
+
+    /** @return the keys of the fields and macros that the spec file no longer has. */
+    public List<String> getRemovedKeys() {
+        return m_removedKeys;
+    }
+
+    /** @return the keys of the fields and macros whose values changed. */
+    public List<String> getModifiedKeys() {
+        return m_modifiedKeys;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append(m_type).append(' ').append(m_path);
+        if (m_type == Type.FAILED) {
+            text.append(' ').append(m_error);
+        } else if (m_type == Type.MODIFIED) {
+            text.append(" added ").append(m_addedKeys).append(" removed ").append(m_removedKeys)
+                .append(" modified ").append(m_modifiedKeys);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,464 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this list
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this
+ *     list of conditions and the following disclaimer in the documentation and/or other
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.watch;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.computer.whunter.rpm.parser.RpmSpecBatchParser;
+import org.computer.whunter.rpm.parser.RpmSpecParseResult;
+import org.computer.whunter.rpm.parser.RpmSpecParser;
+import org.computer.whunter.rpm.parser.RpmSpecProperties;
+
+/**
+ * Keeps the properties of the spec files under a directory tree up to date as they change. The tree is 
+ * parsed once when the watcher is started and then watched with a {@link WatchService}. Only the spec 
+ * files that are added, modified or removed are parsed again, and each change is published to the 
+ * subscribers as a {@link RpmSpecChangeEvent}.
+ * <p>
+ * Editors and version control tools often write a file several times in quick succession, so a spec file
+ * is only parsed again once it has been left alone for the debounce interval. A burst of changes to many 
+ * spec files, such as a checkout, is parsed in parallel by a {@link RpmSpecBatchParser}. A spec file whose 
+ * properties are the same after it is parsed again does not produce an event.
+ * <p>
+ * The events of the initial scan are published on the thread that calls {@link #start()}, so subscribe 
+ * before starting to see every spec file. Later events are published on the watcher's own thread, one at
+ * a time. A subscriber that throws an exception does not stop the watcher or the other subscribers. 
+ * {@link #getSpecs()} can be read from any thread. A directory below the root that cannot be read is 
+ * logged and skipped.
+ *
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public final class RpmSpecWatcher implements Closeable {
+
+    /** Receives the changes seen by a watcher */
+    public interface Subscriber {
+        /**
+         * @param event a change to one spec file.
+         */
+        void changed(RpmSpecChangeEvent event);
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(RpmSpecWatcher.class.getName());
+
+    /** The time a spec file must be left alone before it is parsed again, unless another is given */
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 200;
+
+    private final RpmSpecParser m_parser;
+    private final Path m_root;
+    private final PathMatcher m_matcher;
+    private final boolean m_matchName;
+    private final long m_debounceNanos;
+
+    private final List<Subscriber> m_subscribers = new CopyOnWriteArrayList<Subscriber>();
+
+    /** The current properties of the spec files */
+    private final Map<Path, RpmSpecProperties> m_specs = new ConcurrentHashMap<Path, RpmSpecProperties>();
+
+    /** The watched directories, only used by the thread that starts the watcher and then by the watcher thread */
+    private final Map<WatchKey, Path> m_directories = new HashMap<WatchKey, Path>();
+
+    /** The paths that have changed and the time they will be parsed, earliest first */
+    private final LinkedHashMap<Path, Long> m_pending = new LinkedHashMap<Path, Long>();
+
+    private WatchService m_watchService;
+    private ForkJoinPool m_pool;
+    private RpmSpecBatchParser m_batchParser;
+    private Thread m_thread;
+    private volatile boolean m_closed;
+
+    /**
+     * Create a watcher with the default debounce interval.
+     *
+     * @param parser the parser to use for each spec file.
+     * @param root the directory tree to watch.
+     * @param glob the glob that selects the spec files, as for {@link RpmSpecBatchParser#parseAll(Path, String, RpmSpecBatchParser.Listener)}.
+     * @return a watcher that has not been started.
+     */
+    public static RpmSpecWatcher createWatcher(RpmSpecParser parser, Path root, String glob) {
+        return createWatcher(parser, root, glob, DEFAULT_DEBOUNCE_MILLIS);
+    }
+
+    /**
+     * Create a watcher.
+     *
+     * @param parser the parser to use for each spec file.
+     * @param root the directory tree to watch.
+     * @param glob the glob that selects the spec files, as for {@link RpmSpecBatchParser#parseAll(Path, String, RpmSpecBatchParser.Listener)}.
+     * @param debounceMillis the time a spec file must be left alone before it is parsed again.
+     * @return a watcher that has not been started.
+     */
+    public static RpmSpecWatcher createWatcher(RpmSpecParser parser, Path root, String glob, long debounceMillis) {
+        if (debounceMillis < 0) {
+            throw new IllegalArgumentException("debounceMillis must not be negative");
+        }
+        return new RpmSpecWatcher(parser, root, glob, debounceMillis);
+    }
+
+    /** Private constructor */
+    private RpmSpecWatcher(RpmSpecParser parser, Path root, String glob, long debounceMillis) {
+        m_parser = parser;
+        m_root = root;
+        m_matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        m_matchName = glob.indexOf('/') < 0;
+        m_debounceNanos = TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+    }
+
+    /** @param subscriber receives the changes from now on. */
+    public void subscribe(Subscriber subscriber) {
+        m_subscribers.add(subscriber);
+    }
+
+    /** @param subscriber no longer receives the changes. */
+    public void unsubscribe(Subscriber subscriber) {
+        m_subscribers.remove(subscriber);
+    }
+
+    /** @return the current properties of the spec files, which is a live view that can not be modified. */
+    public Map<Path, RpmSpecProperties> getSpecs() {
+        return Collections.unmodifiableMap(m_specs);
+    }
+
+    /**
+     * @param specFile the path of a spec file under the root.
+     * @return the current properties of the spec file or null if it is not known.
+     */
+    public RpmSpecProperties getProperties(Path specFile) {
+        return m_specs.get(specFile);
+    }
+
+    /**
+     * Parse the spec files under the root, publishing an {@link RpmSpecChangeEvent.Type#ADDED} event for each, and
+     * start watching for changes.
+     *
+     * @throws IOException if the directory tree could not be walked or watched.
+     * @throws InterruptedException if the thread was interrupted while the spec files were being parsed.
+     */
+    public synchronized void start() throws IOException, InterruptedException {
+        if (m_watchService != null) {
+            throw new IllegalStateException("The watcher has already been started");
+        }
+        m_watchService = m_root.getFileSystem().newWatchService();
+        m_pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        m_batchParser = RpmSpecBatchParser.createBatchParser(m_parser, m_pool);
+        boolean scanned = false;
+        try {
+            List<Path> specFiles = new ArrayList<Path>();
+            register(m_root, specFiles);
+            parse(specFiles);
+            scanned = true;
+        }
+        finally {
+            if (!scanned) {
+                close();
+            }
+        }
+        m_thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                watch();
+            }
+        }, "rpm-spec-watcher " + m_root);
+        m_thread.setDaemon(true);
+        m_thread.start();
+    }
+
+    /** Stop watching. The properties that have been parsed can still be read. */
+    @Override
+    public void close() throws IOException {
+        Thread thread;
+        synchronized (this) {
+            m_closed = true;
+            if (m_watchService != null) {
+                m_watchService.close();
+            }
+            if (m_thread == null && m_pool != null) {
+                m_pool.shutdownNow();
+            }
+            thread = m_thread;
+        }
+        // A subscriber may close the watcher from the watcher thread, which then stops by itself
+        if (thread != null && thread != Thread.currentThread()) {
+            thread.interrupt();
+            try {
+                thread.join();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** The loop of the watcher thread */
+    private void watch() {
+        try {
+            while (!m_closed) {
+                WatchKey key;
+                if (m_pending.isEmpty()) {
+                    key = m_watchService.take();
+                } else {
+                    long wait = m_pending.values().iterator().next() - System.nanoTime();
+                    key = (wait > 0) ? m_watchService.poll(wait, TimeUnit.NANOSECONDS) : m_watchService.poll();
+                }
+                while (key != null) {
+                    process(key);
+                    key = m_watchService.poll();
+                }
+                flush();
+            }
+        }
+        catch (ClosedWatchServiceException e) {
+            // The watcher has been closed
+        }
+        catch (InterruptedException e) {
+            // The watcher has been closed
+        }
+        finally {
+            m_pool.shutdownNow();
+        }
+    }
+
+    /** Note the paths that the events of a watched directory refer to */
+    private void process(WatchKey key) {
+        Path directory = m_directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                // Some events were lost, check every spec file that is known or can be found
+                for (Path specFile : m_specs.keySet()) {
+                    changed(specFile);
+                }
+                List<Path> specFiles = new ArrayList<Path>();
+                registerQuietly(m_root, specFiles);
+                for (Path specFile : specFiles) {
+                    changed(specFile);
+                }
+                continue;
+            }
+            if (directory == null) {
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                // Files may have been written to the directory before it was watched
+                List<Path> specFiles = new ArrayList<Path>();
+                registerQuietly(path, specFiles);
+                for (Path specFile : specFiles) {
+                    changed(specFile);
+                }
+            } else if (event.kind() == ENTRY_DELETE && !m_specs.containsKey(path)) {
+                // Perhaps a directory, its spec files have gone too
+                for (Path specFile : m_specs.keySet()) {
+                    if (specFile.startsWith(path)) {
+                        changed(specFile);
+                    }
+                }
+            } else if (m_specs.containsKey(path) || matches(path)) {
+                changed(path);
+            }
+        }
+        if (!key.reset()) {
+            // The directory has gone
+            m_directories.remove(key);
+            for (Path specFile : m_specs.keySet()) {
+                if (directory != null && specFile.startsWith(directory)) {
+                    changed(specFile);
+                }
+            }
+        }
+    }
+
+    /** Put off parsing a path until it has been left alone for the debounce interval */
+    private void changed(Path path) {
+        m_pending.remove(path);
+        m_pending.put(path, System.nanoTime() + m_debounceNanos);
+    }
+
+    /** Parse the paths that have been left alone for long enough and publish the changes */
+    private void flush() throws InterruptedException {
+        long now = System.nanoTime();
+        List<Path> specFiles = new ArrayList<Path>();
+        for (Iterator<Map.Entry<Path, Long>> entries = m_pending.entrySet().iterator(); entries.hasNext(); ) {
+            Map.Entry<Path, Long> entry = entries.next();
+            if (entry.getValue() - now > 0) {
+                break;
+            }
+            entries.remove();
+            Path path = entry.getKey();
+            if (Files.isRegularFile(path) && matches(path)) {
+                specFiles.add(path);
+            } else {
+                removed(path);
+            }
+        }
+        if (!specFiles.isEmpty()) {
+            parse(specFiles);
+        }
+    }
+
+    /** Parse some spec files and publish the changes to their properties */
+    private void parse(List<Path> specFiles) throws InterruptedException {
+        m_batchParser.parseAll(specFiles, new RpmSpecBatchParser.Listener() {
+            @Override
+            public void parsed(RpmSpecParseResult result) {
+                Path path = result.getPath();
+                if (result.isSuccess()) {
+                    RpmSpecProperties properties = result.getSpecProperties();
+                    RpmSpecProperties old = m_specs.put(path, properties);
+                    if (old == null) {
+                        publish(new RpmSpecChangeEvent(RpmSpecChangeEvent.Type.ADDED, path, null, properties, null));
+                    } else if (!old.equals(properties)) {
+                        publish(new RpmSpecChangeEvent(RpmSpecChangeEvent.Type.MODIFIED, path, old, properties, null));
+                    }
+                } else if (result.getError() instanceof NoSuchFileException) {
+                    // Deleted since it was seen, the event of the deletion will follow
+                    removed(path);
+                } else {
+                    publish(new RpmSpecChangeEvent(RpmSpecChangeEvent.Type.FAILED, path, m_specs.get(path), null, result.getError()));
+                }
+            }
+        });
+    }
+
+    private void removed(Path path) {
+        RpmSpecProperties old = m_specs.remove(path);
+        if (old != null) {
+            publish(new RpmSpecChangeEvent(RpmSpecChangeEvent.Type.REMOVED, path, old, null, null));
+        }
+    }
+
+    private void publish(RpmSpecChangeEvent event) {
+        for (Subscriber subscriber : m_subscribers) {
+            try {
+                subscriber.changed(event);
+            }
+            catch (RuntimeException e) {
+                // One broken subscriber must not stop the others from seeing the change
+                LOGGER.log(Level.WARNING, "A subscriber failed on the " + event.getType() + " event of " 
+                    + event.getPath(), e);
+            }
+        }
+    }
+
+    /** 
+     * Watch a directory and those below it, collecting the spec files in them. An entry below the start that 
+     * cannot be read or watched is logged and skipped, so one locked directory does not stop the rest of the 
+     * tree being watched.
+     */
+    private void register(final Path start, final List<Path> specFiles) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) throws IOException {
+                WatchKey key;
+                try {
+                    key = directory.register(m_watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+                }
+                catch (IOException e) {
+                    if (directory.equals(start)) {
+                        throw e;
+                    }
+                    skipped(directory, e);
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                m_directories.put(key, directory);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (attributes.isRegularFile() && matches(file)) {
+                    specFiles.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+                if (file.equals(start)) {
+                    throw e;
+                }
+                skipped(file, e);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path directory, IOException e) {
+                if (e != null) {
+                    skipped(directory, e);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void skipped(Path path, IOException e) {
+        LOGGER.log(Level.WARNING, "Skipped " + path + " while watching " + m_root + ": " + e);
+    }
+
+    /** Watch a directory that appeared while watching, which may have gone again already */
+    private void registerQuietly(Path start, List<Path> specFiles) {
+        try {
+            register(start, specFiles);
+        }
+        catch (IOException e) {
+            // The events of its removal will follow
+        }
+    }
+
+    private boolean matches(Path path) {
+        Path candidate = m_matchName ? path.getFileName() : m_root.relativize(path);
+        return candidate != null && m_matcher.matches(candidate);
+    }
+}
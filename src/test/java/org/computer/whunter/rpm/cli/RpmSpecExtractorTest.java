@@ -0,0 +1,205 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ *  1. Redistributions of source code must retain the above copyright notice, this list 
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this 
+ *     list of conditions and the following disclaimer in the documentation and/or other 
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES 
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT 
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) 
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, 
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.cli;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of the command line extractor.
+ * 
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public class RpmSpecExtractorTest {
+
+    private final ByteArrayOutputStream m_err = new ByteArrayOutputStream();
+    private Path m_root;
+    private String m_widget;
+    private String m_gadget;
+
+    @Before
+    public void setUp() throws Exception {
+        m_root = Files.createTempDirectory("rpm-spec-extractor");
+        m_widget = write("widget.spec", "Name: widget", "Version: 1.0", "Summary: A \"quoted\", widget", 
+                "Requires: foo", "Requires: bar >= 2", "%define who Warwick Hunter", 
+                "%package devel", "Summary: The headers", "%description", "A widget");
+        m_gadget = write("sub/gadget.spec", "Name: gadget", "Version: %{major}.1", "%global major 2");
+        write("README", "Not a spec file");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.walkFileTree(m_root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Test
+    public void testJsonFields() throws Exception {
+        List<String> lines = run(RpmSpecExtractor.EXIT_OK, "--threads", "2", "--fields", "name,Summary,requires,who", 
+                m_widget, m_gadget, m_widget);
+        String widget = record(m_widget, "\"name\":\"widget\",\"summary\":\"A \\\"quoted\\\", widget\"," 
+                + "\"requires\":[\"foo\",\"bar >= 2\"],\"who\":\"Warwick Hunter\"");
+        String gadget = record(m_gadget, "\"name\":\"gadget\",\"summary\":null,\"requires\":null,\"who\":null");
+        // The records are in the order of the arguments whichever thread parsed them
+        assertEquals(Arrays.asList(widget, gadget, widget), lines);
+    }
+
+    @Test
+    public void testJsonAll() throws Exception {
+        List<String> lines = run(RpmSpecExtractor.EXIT_OK, m_gadget);
+        // Without fields the whole file is read, so references see macros defined after them
+        assertEquals(Collections.singletonList(record(m_gadget, "\"major\":\"2\",\"name\":\"gadget\",\"version\":\"2.1\"")), 
+                lines);
+    }
+
+    @Test
+    public void testMacroFields() throws Exception {
+        String macros = write("macros.spec", "%define myVer 1.2", "%define path /opt/macros", "Name: macros", 
+                "Version: %{myVer}");
+        // Macro names keep their case while fields are matched in any case, and a macro named path cannot 
+        // be mistaken for the path of the record
+        List<String> lines = run(RpmSpecExtractor.EXIT_OK, "--fields", "myVer,path,NAME", macros);
+        assertEquals(Collections.singletonList(record(macros, 
+                "\"myVer\":\"1.2\",\"path\":\"/opt/macros\",\"name\":\"macros\"")), lines);
+
+        lines = run(RpmSpecExtractor.EXIT_OK, "--format", "csv", "--fields", "myVer,Version", macros);
+        assertEquals(Arrays.asList("path,myVer,version", macros + ",1.2,1.2"), lines);
+    }
+
+    @Test
+    public void testCsv() throws Exception {
+        List<String> lines = run(RpmSpecExtractor.EXIT_OK, "--format", "csv", "--fields", "name,summary,requires", m_widget);
+        assertEquals(Arrays.asList("path,name,summary,requires", 
+                m_widget + ",widget,\"A \"\"quoted\"\", widget\",\"foo, bar >= 2\""), lines);
+
+        lines = run(RpmSpecExtractor.EXIT_OK, "--format", "csv", m_gadget);
+        assertEquals(Arrays.asList("path,key,value", m_gadget + ",major,2", m_gadget + ",name,gadget", 
+                m_gadget + ",version,2.1"), lines);
+    }
+
+    @Test
+    public void testDirectory() throws Exception {
+        List<String> lines = run(RpmSpecExtractor.EXIT_OK, "--fields", "name", m_root.toString());
+        Collections.sort(lines);
+        assertEquals(Arrays.asList(record(m_gadget, "\"name\":\"gadget\""), record(m_widget, "\"name\":\"widget\"")), 
+                lines);
+
+        lines = run(RpmSpecExtractor.EXIT_OK, "--glob", "sub/*.spec", "--fields", "name", m_root.toString());
+        assertEquals(Collections.singletonList(record(m_gadget, "\"name\":\"gadget\"")), lines);
+    }
+
+    @Test
+    public void testDefines() throws Exception {
+        List<String> lines = run(RpmSpecExtractor.EXIT_OK, "--define", "major=7", "--fields", "version", m_gadget);
+        // The version comes before %global so only the define is seen
+        assertEquals(Collections.singletonList(record(m_gadget, "\"version\":\"7.1\"")), lines);
+    }
+
+    @Test
+    public void testErrors() throws Exception {
+        String missing = m_root.resolve("missing.spec").toString();
+        List<String> lines = run(RpmSpecExtractor.EXIT_FAILED, "--fields", "name", missing, m_gadget);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).startsWith("{\"path\":" + quote(missing) + ",\"error\":"));
+
+        // CSV has no place for errors so they go to the error stream
+        lines = run(RpmSpecExtractor.EXIT_FAILED, "--format", "csv", "--fields", "name", missing);
+        assertEquals(Collections.singletonList("path,name"), lines);
+        assertTrue(m_err.toString().startsWith(missing + ": "));
+
+        // A spec file the parser rejects is reported like one that cannot be read and the others are still written
+        String broken = write("broken.spec", "Name: one", "Name: two", "Version: %{name}");
+        lines = run(RpmSpecExtractor.EXIT_FAILED, "--threads", "2", broken, m_gadget);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0), lines.get(0).startsWith("{\"path\":" + quote(broken) + ",\"error\":"));
+        assertTrue(lines.get(1).startsWith("{\"path\":" + quote(m_gadget) + ",\"properties\":"));
+
+        run(RpmSpecExtractor.EXIT_USAGE, "--format", "xml", m_gadget);
+        run(RpmSpecExtractor.EXIT_USAGE, "--threads", "none", m_gadget);
+        run(RpmSpecExtractor.EXIT_USAGE, "--fields");
+        run(RpmSpecExtractor.EXIT_USAGE);
+    }
+
+    private List<String> run(int expectedStatus, String... args) throws IOException {
+        StringWriter out = new StringWriter();
+        m_err.reset();
+        int status = RpmSpecExtractor.run(args, out, new PrintStream(m_err, true));
+        assertEquals(m_err.toString(), expectedStatus, status);
+        List<String> lines = new ArrayList<String>();
+        for (String line : out.toString().split("\r?\n")) {
+            if (!line.isEmpty()) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private String write(String name, String... lines) throws IOException {
+        Path file = m_root.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+        return file.toString();
+    }
+
+    /** @return the JSON record of a spec file with the given members of its properties */
+    private static String record(String path, String members) {
+        return "{\"path\":" + quote(path) + ",\"properties\":{" + members + "}}";
+    }
+
+    /** Quote a path as a JSON string, assuming it has nothing that needs escaping other than a backslash */
+    private static String quote(String path) {
+        return "\"" + path.replace("\\", "\\\\") + "\"";
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ *  1. Redistributions of source code must retain the above copyright notice, this list 
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this 
+ *     list of conditions and the following disclaimer in the documentation and/or other 
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES 
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT 
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) 
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, 
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.deps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.computer.whunter.rpm.deps.RpmDependency.Operator;
+import org.computer.whunter.rpm.parser.RpmSpecParser;
+import org.junit.Test;
+
+/**
+ * Tests of the index of the dependencies between spec files.
+ * 
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public class RpmDependencyIndexTest {
+
+    private static final Path GLIBC = Paths.get("SPECS/glibc.spec");
+    private static final Path GCC = Paths.get("SPECS/gcc.spec");
+    private static final Path WIDGET = Paths.get("src/test/resources/specs/multipackage.spec");
+    private static final Path APP = Paths.get("SPECS/app.spec");
+    private static final Path CHICKEN = Paths.get("SPECS/chicken.spec");
+    private static final Path EGG = Paths.get("SPECS/egg.spec");
+
+    private final RpmSpecParser m_parser = RpmSpecParser.createParser();
+
+    private RpmDependencyIndex createIndex() throws IOException {
+        RpmDependencyIndex.Builder builder = RpmDependencyIndex.createBuilder();
+        builder.add(APP, m_parser.parseProperties(spec("Name: app", "Version: 1", 
+                "BuildRequires: libwidget >= 4, gcc", "Requires: widget-devel")));
+        builder.add(WIDGET, m_parser.parseDocument(WIDGET));
+        builder.add(GCC, m_parser.parseProperties(spec("Name: gcc", "Version: 4.8", "Release: 2",
+                "BuildRequires: glibc-devel", "Requires: glibc >= 2.0")));
+        builder.add(GLIBC, m_parser.parseDocument(spec("Name: glibc", "Version: 2.17", "Release: 1", 
+                "Provides: libc.so.6", "%package devel", "Summary: Headers")));
+        builder.add(CHICKEN, m_parser.parseProperties(spec("Name: chicken", "BuildRequires: egg")));
+        builder.add(EGG, m_parser.parseProperties(spec("Name: egg", "BuildRequires: chicken gcc")));
+        return builder.build();
+    }
+
+    private static StringReader spec(String... lines) {
+        StringBuilder text = new StringBuilder();
+        for (String line : lines) {
+            text.append(line).append('\n');
+        }
+        return new StringReader(text.toString());
+    }
+
+    @Test
+    public void testQueries() throws Exception {
+        RpmDependencyIndex index = createIndex();
+        assertEquals(Arrays.asList(APP, WIDGET, GCC, GLIBC, CHICKEN, EGG), index.getSpecs());
+        assertEquals(Collections.singleton(GCC), index.getRequirers("glibc"));
+        assertEquals(Collections.singleton(GCC), index.getBuildRequirers("glibc-devel"));
+        assertEquals(new HashSet<Path>(Arrays.asList(APP, EGG)), index.getBuildRequirers("gcc"));
+        assertTrue(index.getRequirers("nothing").isEmpty());
+
+        assertEquals(Collections.singleton(GLIBC), index.getProviders("libc.so.6"));
+        assertEquals(Collections.singleton(GLIBC), index.getProviders("glibc-devel"));
+        assertEquals(Collections.singleton(WIDGET), index.getProviders("libwidget.so.3"));
+        assertEquals(Collections.singleton(WIDGET), index.getProviders(RpmDependency.of("libwidget", Operator.GREATER_OR_EQUAL, "3")));
+        assertTrue(index.getProviders(RpmDependency.of("libwidget", Operator.GREATER_OR_EQUAL, "4")).isEmpty());
+
+        // The version of libwidget that app needs is not in the corpus
+        assertEquals(Collections.singleton(GCC), index.getBuildDependencies(APP));
+        assertEquals(Collections.singleton(GLIBC), index.getBuildDependencies(GCC));
+        assertEquals(Collections.singleton(GCC), index.getDependents(GLIBC));
+        assertEquals(Collections.singleton(APP), index.getDependents(WIDGET));
+        assertTrue(index.getDependents(APP).isEmpty());
+    }
+
+    @Test
+    public void testReverseClosure() throws Exception {
+        RpmDependencyIndex index = createIndex();
+        assertEquals(new HashSet<Path>(Arrays.asList(GCC, APP, EGG, CHICKEN)), index.getReverseClosure(GLIBC));
+        assertEquals(Collections.singleton(EGG), index.getReverseClosure(CHICKEN));
+        assertTrue(index.getReverseClosure(APP).isEmpty());
+        assertEquals(Collections.singleton(APP), index.getReverseClosure(Arrays.asList(WIDGET, GCC, GLIBC, EGG, CHICKEN)));
+    }
+
+    @Test
+    public void testRebuildOrder() throws Exception {
+        RpmDependencyIndex index = createIndex();
+        assertEquals(Arrays.asList(WIDGET, GLIBC, GCC, APP, CHICKEN, EGG), index.getRebuildOrder());
+        assertEquals(Arrays.asList(GCC, APP), index.getRebuildOrder(Arrays.asList(APP, GCC)));
+        assertEquals(Arrays.asList(CHICKEN, EGG), index.getRebuildOrder(Arrays.asList(EGG, CHICKEN)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownSpec() throws Exception {
+        createIndex().getDependents(Paths.get("SPECS/unknown.spec"));
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ *  1. Redistributions of source code must retain the above copyright notice, this list 
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this 
+ *     list of conditions and the following disclaimer in the documentation and/or other 
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES 
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT 
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) 
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, 
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.deps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.computer.whunter.rpm.deps.RpmDependency.Operator;
+import org.junit.Test;
+
+/**
+ * Tests of the parsing and comparison of dependencies.
+ * 
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public class RpmDependencyTest {
+
+    @Test
+    public void testParseAll() {
+        assertEquals(Arrays.asList(RpmDependency.of("perl", Operator.GREATER_OR_EQUAL, "5.8"), RpmDependency.of("bash"),
+                                   RpmDependency.of("jdk", Operator.EQUAL, "1:1.7-3"), RpmDependency.of("/bin/sh")),
+                     RpmDependency.parseAll("perl >= 5.8, bash jdk == 1:1.7-3,/bin/sh"));
+        assertEquals(Arrays.asList(RpmDependency.of("foo", Operator.LESS, "2"), RpmDependency.of("bar", Operator.GREATER, "1")),
+                     RpmDependency.parseAll("foo<2 bar>1"));
+        assertEquals(Arrays.asList(RpmDependency.of("(foo or bar >= 2)"), RpmDependency.of("perl(Carp)")),
+                     RpmDependency.parseAll("(foo or bar >= 2), perl(Carp)"));
+        assertTrue(RpmDependency.parseAll(" , ").isEmpty());
+        assertEquals(Arrays.asList(RpmDependency.of("foo")), RpmDependency.parseAll("foo >= , >="));
+        assertEquals("perl >= 5.8", RpmDependency.parseAll("perl>=5.8").get(0).toString());
+    }
+
+    @Test
+    public void testVersions() {
+        RpmVersionComparator versions = RpmVersionComparator.INSTANCE;
+        assertEquals(0, versions.compare("1.0", "1.0"));
+        assertTrue(versions.compare("1.10", "1.9") > 0);
+        assertTrue(versions.compare("1.0", "1.0.1") < 0);
+        assertTrue(versions.compare("1.0a", "1.0") > 0);
+        assertTrue(versions.compare("1.0", "1a") > 0);
+        assertEquals(0, versions.compare("1.007", "1.7"));
+        assertEquals(0, versions.compare("1_0", "1.0"));
+        assertTrue(versions.compare("1.0~rc1", "1.0") < 0);
+        assertTrue(versions.compare("1.0~rc1", "1.0~rc2") < 0);
+        assertTrue(versions.compare("1.0^git1", "1.0") > 0);
+        assertTrue(versions.compare("1.0^git1", "1.0.1") < 0);
+        assertTrue(versions.compare("123456789012345678901", "99") > 0);
+    }
+
+    @Test
+    public void testEvr() {
+        assertEquals(0, RpmVersionComparator.compareEvr("1.0", "1.0-3"));
+        assertTrue(RpmVersionComparator.compareEvr("1.0-10", "1.0-9") > 0);
+        assertTrue(RpmVersionComparator.compareEvr("1:0.1", "2.0") > 0);
+        assertEquals(0, RpmVersionComparator.compareEvr("0:2.0", "2.0"));
+    }
+
+    @Test
+    public void testSatisfiedBy() {
+        RpmDependency provide = RpmDependency.of("foo", Operator.EQUAL, "2.0-1");
+        assertTrue(RpmDependency.of("foo").isSatisfiedBy(provide));
+        assertTrue(RpmDependency.of("foo", Operator.GREATER_OR_EQUAL, "1.5").isSatisfiedBy(provide));
+        assertTrue(RpmDependency.of("foo", Operator.EQUAL, "2.0").isSatisfiedBy(provide));
+        assertFalse(RpmDependency.of("foo", Operator.LESS, "2.0").isSatisfiedBy(provide));
+        assertFalse(RpmDependency.of("foo", Operator.GREATER, "2.0-1").isSatisfiedBy(provide));
+        assertFalse(RpmDependency.of("bar").isSatisfiedBy(provide));
+        assertTrue(RpmDependency.of("foo", Operator.GREATER, "3").isSatisfiedBy(RpmDependency.of("foo")));
+    }
+}
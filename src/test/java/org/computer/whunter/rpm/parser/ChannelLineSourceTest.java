@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ *  1. Redistributions of source code must retain the above copyright notice, this list 
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this 
+ *     list of conditions and the following disclaimer in the documentation and/or other 
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES 
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT 
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) 
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, 
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.Multimap;
+
+/**
+ * Tests of reading the lines of a spec file through a channel.
+ * 
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public class ChannelLineSourceTest {
+
+    @Rule
+    public TemporaryFolder m_folder = new TemporaryFolder();
+
+    private Path write(String text, Charset charset) throws IOException {
+        Path path = m_folder.newFile().toPath();
+        Files.write(path, text.getBytes(charset));
+        return path;
+    }
+
+    private List<String> readLines(Path path, Charset charset) throws IOException {
+        List<String> lines = new ArrayList<String>();
+        try (ChannelLineSource source = ChannelLineSource.open(path, charset)) {
+            String line;
+            while ((line = source.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    @Test
+    public void testLineTerminators() throws IOException {
+        String text = "unix\nwindows\r\nmac\r\rempty above\n\nlast";
+        List<String> expected = Arrays.asList("unix", "windows", "mac", "", "empty above", "", "last");
+        assertEquals(expected, readLines(write(text, StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+        assertEquals(Arrays.asList("one", "two"), readLines(write("one\ntwo\n", StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+        assertEquals(Arrays.<String>asList(), readLines(write("", StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testCharsets() throws IOException {
+        String text = "Packager: J\u00f6rg M\u00fcller\nSummary: \u65e5\u672c\u8a9e\n";
+        List<String> expected = Arrays.asList("Packager: J\u00f6rg M\u00fcller", "Summary: \u65e5\u672c\u8a9e");
+        assertEquals(expected, readLines(write(text, StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+        assertEquals(expected, readLines(write(text, StandardCharsets.UTF_16), StandardCharsets.UTF_16));
+        assertEquals(Arrays.asList("Vendor: Bj\u00f6rn"), 
+                     readLines(write("Vendor: Bj\u00f6rn\n", StandardCharsets.ISO_8859_1), StandardCharsets.ISO_8859_1));
+    }
+
+    /** A file above the threshold is memory mapped rather than read into a pooled buffer */
+    @Test
+    public void testMappedFile() throws IOException {
+        StringBuilder text = new StringBuilder("Name: big\n%files\n");
+        int files = 0;
+        while (text.length() <= ChannelLineSource.MAP_THRESHOLD) {
+            text.append("/usr/share/big/file").append(files++).append('\n');
+        }
+        Path path = write(text.toString(), StandardCharsets.UTF_8);
+        assertEquals(files + 2, readLines(path, StandardCharsets.UTF_8).size());
+        Multimap<String, String> properties = RpmSpecParser.createParser().parse(path);
+        assertEquals("[big]", properties.get("name").toString());
+    }
+
+    @Test
+    public void testParserCharset() throws IOException {
+        Path path = write("Vendor: Bj\u00f6rn\n", StandardCharsets.ISO_8859_1);
+        Multimap<String, String> properties = RpmSpecParser.createParser().withCharset(StandardCharsets.ISO_8859_1).parse(path);
+        assertEquals("[Bj\u00f6rn]", properties.get("vendor").toString());
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ *  1. Redistributions of source code must retain the above copyright notice, this list 
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this 
+ *     list of conditions and the following disclaimer in the documentation and/or other 
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES 
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT 
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) 
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, 
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests of the evaluation of the expressions of conditionals.
+ * 
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public class ConditionEvaluatorTest {
+
+    @Test
+    public void testNumbers() {
+        assertTrue(ConditionEvaluator.evaluate("1"));
+        assertFalse(ConditionEvaluator.evaluate("0"));
+        assertTrue(ConditionEvaluator.evaluate("07 >= 7"));
+        assertFalse(ConditionEvaluator.evaluate("0 >= 7"));
+        assertTrue(ConditionEvaluator.evaluate("2 + 3 * 4 == 14"));
+        assertTrue(ConditionEvaluator.evaluate("(2 + 3) * 4 == 20"));
+        assertTrue(ConditionEvaluator.evaluate("-1"));
+        assertTrue(ConditionEvaluator.evaluate("10 / 3 == 3"));
+    }
+
+    @Test
+    public void testLogic() {
+        assertTrue(ConditionEvaluator.evaluate("1 && 2"));
+        assertFalse(ConditionEvaluator.evaluate("1 && 0"));
+        assertTrue(ConditionEvaluator.evaluate("0 || 3"));
+        assertTrue(ConditionEvaluator.evaluate("!0"));
+        assertFalse(ConditionEvaluator.evaluate("! 1"));
+        assertTrue(ConditionEvaluator.evaluate("1 != 2 && !(1 > 2)"));
+        assertTrue(ConditionEvaluator.evaluate("0 || 1 && 1"));
+    }
+
+    @Test
+    public void testStrings() {
+        assertTrue(ConditionEvaluator.evaluate("\"abc\" == \"abc\""));
+        assertTrue(ConditionEvaluator.evaluate("\"abc\" < \"abd\""));
+        assertFalse(ConditionEvaluator.evaluate("\"\""));
+        assertTrue(ConditionEvaluator.evaluate("\"a\" + \"b\" == \"ab\""));
+        assertTrue(ConditionEvaluator.evaluate("x86_64 == x86_64"));
+    }
+
+    /** Unexpanded references count as undefined and malformed expressions are false */
+    @Test
+    public void testLenient() {
+        assertFalse(ConditionEvaluator.evaluate("%{with docs}"));
+        assertTrue(ConditionEvaluator.evaluate("!%undefined"));
+        assertFalse(ConditionEvaluator.evaluate(""));
+        assertFalse(ConditionEvaluator.evaluate("1 +"));
+        assertFalse(ConditionEvaluator.evaluate("(1"));
+        assertFalse(ConditionEvaluator.evaluate("1 / 0"));
+        assertFalse(ConditionEvaluator.evaluate("\"a\" - 1"));
+        assertFalse(ConditionEvaluator.evaluate("1 2"));
+    }
+}
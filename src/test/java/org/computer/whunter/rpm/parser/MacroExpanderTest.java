@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ *  1. Redistributions of source code must retain the above copyright notice, this list 
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this 
+ *     list of conditions and the following disclaimer in the documentation and/or other 
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES 
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT 
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) 
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, 
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.common.collect.Multimap;
+
+/**
+ * Tests of the expansion of macro references.
+ * 
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public class MacroExpanderTest {
+
+    /** Symbols backed by a map that count how often each one is looked up */
+    private static class MapSymbols implements MacroExpander.Symbols {
+        private final Map<String, String> m_values = new HashMap<String, String>();
+        private final Map<String, Integer> m_lookups = new HashMap<String, Integer>();
+
+        MapSymbols define(String name, String value) {
+            m_values.put(name, value);
+            return this;
+        }
+
+        @Override
+        public String valueOf(String name) {
+            Integer count = m_lookups.get(name);
+            m_lookups.put(name, count == null ? 1 : count + 1);
+            return m_values.get(name);
+        }
+    }
+
+    @Test
+    public void testForms() {
+        MapSymbols symbols = new MapSymbols().define("name", "p4bugzilla").define("version", "1.1");
+        MacroExpander expander = new MacroExpander(symbols);
+        assertEquals("no references", expander.expand("no references"));
+        assertEquals("p4bugzilla-1.1", expander.expand("%{name}-%{version}"));
+        assertEquals("p4bugzilla-1.1", expander.expand("%name-%version"));
+        assertEquals("1.1", expander.expand("%{?version}"));
+        assertEquals("", expander.expand("%{?dist}"));
+        assertEquals("", expander.expand("%{!?version}"));
+        assertEquals("yes", expander.expand("%{?version:yes}"));
+        assertEquals("", expander.expand("%{?dist:yes}"));
+        assertEquals("el6", expander.expand("%{!?dist:el6}"));
+        assertEquals("", expander.expand("%{!?name:el6}"));
+        assertEquals("100%", expander.expand("100%%"));
+        assertEquals("%{_tmppath}/p4bugzilla", expander.expand("%{_tmppath}/%{name}"));
+        assertEquals("%setup -q", expander.expand("%setup -q"));
+        assertEquals("50% off", expander.expand("50% off"));
+        assertEquals("trailing %", expander.expand("trailing %"));
+        assertEquals("%{name", expander.expand("%{name"));
+    }
+
+    @Test
+    public void testCaseInsensitiveNames() throws Exception {
+        // The macros of a spec file are referred to in any case, as they always have been by this parser
+        String spec = "%define Who bar\n%define where here\nSummary: %{who} and %{Who} and %{WHERE}\n";
+        Multimap<String, String> properties = RpmSpecParser.createParser().parse(new StringReader(spec));
+        assertEquals("bar and bar and here", properties.get("summary").iterator().next());
+        
+        // A macro of the exact name is preferred to one that differs in case
+        spec = "%define Who upper\n%define who lower\nSummary: %{Who} %{who} %{WHO}\n";
+        properties = RpmSpecParser.createParser().parse(new StringReader(spec));
+        assertEquals("upper lower lower", properties.get("summary").iterator().next());
+    }
+
+    @Test
+    public void testNestedReferences() {
+        MapSymbols symbols = new MapSymbols().define("name", "p4bugzilla")
+                                             .define("version", "1.1")
+                                             .define("nv", "%{name}-%{version}")
+                                             .define("tarball", "%{nv}.tar.gz");
+        MacroExpander expander = new MacroExpander(symbols);
+        assertEquals("/src/p4bugzilla-1.1.tar.gz", expander.expand("/src/%{tarball}"));
+        assertEquals("p4bugzilla-1.1", expander.expand("%{!?dist:%{nv}}"));
+        assertEquals("p4bugzilla-1.1.tar.gz", expander.resolve("tarball"));
+    }
+
+    @Test
+    public void testCycles() {
+        MapSymbols symbols = new MapSymbols().define("a", "%{b}").define("b", "x%{a}").define("self", "%self");
+        MacroExpander expander = new MacroExpander(symbols);
+        assertEquals("x%{a}", expander.expand("%{a}"));
+        assertEquals("%self", expander.expand("%{self}"));
+        assertNull(expander.resolve("undefined"));
+    }
+
+    @Test
+    public void testMemoisation() {
+        MapSymbols symbols = new MapSymbols().define("name", "p4bugzilla").define("nv", "%{name}-1");
+        MacroExpander expander = new MacroExpander(symbols);
+        for (int i = 0; i < 10; ++i) {
+            assertEquals("p4bugzilla-1", expander.expand("%{nv}"));
+        }
+        assertEquals(Integer.valueOf(1), symbols.m_lookups.get("nv"));
+        assertEquals(Integer.valueOf(1), symbols.m_lookups.get("name"));
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ *  1. Redistributions of source code must retain the above copyright notice, this list 
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this 
+ *     list of conditions and the following disclaimer in the documentation and/or other 
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES 
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT 
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) 
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, 
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.StringReader;
+import java.nio.file.Paths;
+import java.util.Collections;
+
+import org.junit.Test;
+
+/**
+ * Tests of the loading and layering of tables of system macros.
+ * 
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public class MacroTableTest {
+
+    @Test
+    public void testLoad() throws Exception {
+        MacroTable macros = MacroTable.load(Paths.get("src/test/resources/macros/macros"));
+        assertEquals("/usr", macros.get("_prefix"));
+        assertEquals("%{_exec_prefix}/%{_lib}", macros.get("_libdir"));
+        assertEquals("%{__make} install \n\tDESTDIR=%{buildroot}", macros.get("__make_install"));
+        assertEquals("%{?_smp_build_ncpus:-j%{\n\t_smp_build_ncpus}}", macros.get("_smp_mflags"));
+        assertEquals("/usr/bin/make", macros.get("__make"));
+        assertNull(macros.get("bcond_with"));
+        assertNull(macros.get("_obsolete"));
+        assertFalse(macros.getNames().contains("undefine"));
+        assertEquals(11, macros.size());
+    }
+
+    @Test
+    public void testContinuations() throws Exception {
+        MacroTable macros = MacroTable.EMPTY.withFile(new StringReader(
+                "# A stray { in a comment\r\n" +
+                "%first one \\\r\n" +
+                "  two\r\n" +
+                "%lua_body %{lua: if x then t = { 1 } end}\n" +
+                "%plain a { b\n" +
+                "%shell %(echo (\n" +
+                "  nested))\n" +
+                "%literal %%{ not opened\n" +
+                "%last 1\n"));
+        assertEquals("one \n  two", macros.get("first"));
+        assertEquals("%{lua: if x then t = { 1 } end}", macros.get("lua_body"));
+        assertEquals("a { b", macros.get("plain"));
+        assertEquals("%(echo (\n  nested))", macros.get("shell"));
+        assertEquals("%%{ not opened", macros.get("literal"));
+        assertEquals("1", macros.get("last"));
+        assertEquals(6, macros.size());
+    }
+
+    @Test
+    public void testLayers() throws Exception {
+        MacroTable system = MacroTable.load(Paths.get("src/test/resources/macros/macros"));
+        MacroTable el9 = system.withFile(new StringReader("%dist .el9\n%undefine _hardened_build\n%global vendor example\n"));
+        assertEquals(".el9", el9.get("dist"));
+        assertEquals("example", el9.get("vendor"));
+        assertNull(el9.get("_hardened_build"));
+        assertEquals("/usr", el9.get("_prefix"));
+
+        // The table that was layered over is not changed
+        assertEquals(".fc40", system.get("dist"));
+        assertEquals("1", system.get("_hardened_build"));
+
+        MacroTable opt = el9.withMacros(Collections.singletonMap("_prefix", "/opt"));
+        assertEquals("/opt", opt.get("_prefix"));
+        assertEquals("/usr", el9.get("_prefix"));
+        assertEquals(opt, el9.withMacros(Collections.singletonMap("_prefix", "/opt")));
+        assertEquals(opt.getFingerprint(), el9.withMacros(Collections.singletonMap("_prefix", "/opt")).getFingerprint());
+        assertFalse(opt.getFingerprint().equals(el9.getFingerprint()));
+        assertSame(MacroTable.EMPTY, RpmSpecParser.createParser().getMacros());
+    }
+}
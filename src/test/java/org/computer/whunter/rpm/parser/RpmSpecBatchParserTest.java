@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ *  1. Redistributions of source code must retain the above copyright notice, this list 
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this 
+ *     list of conditions and the following disclaimer in the documentation and/or other 
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES 
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT 
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) 
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, 
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of parsing a batch of spec files in parallel.
+ * 
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public class RpmSpecBatchParserTest {
+
+    private static final Path P4BUGZILLA = Paths.get("src/test/resources/specs/p4bugzilla.spec");
+
+    @Rule
+    public TemporaryFolder m_folder = new TemporaryFolder();
+
+    private Path m_root;
+
+    /** Collects the results passed to the listener */
+    private static class Collector implements RpmSpecBatchParser.Listener {
+        private final List<RpmSpecParseResult> m_results = new ArrayList<RpmSpecParseResult>();
+
+        @Override
+        public void parsed(RpmSpecParseResult result) {
+            m_results.add(result);
+        }
+    }
+
+    /** Create a tree of spec files, with a file that is not a spec file mixed in */
+    @Before
+    public void createTree() throws IOException {
+        m_root = m_folder.getRoot().toPath();
+        for (int i = 0; i < 50; ++i) {
+            Path directory = Files.createDirectories(m_root.resolve("pkg" + (i % 7)).resolve("SPECS"));
+            Files.copy(P4BUGZILLA, directory.resolve("p4bugzilla" + i + ".spec"));
+        }
+        Files.write(m_root.resolve("README"), "not a spec file".getBytes("UTF-8"));
+    }
+
+    @Test
+    public void testParseTree() throws Exception {
+        Collector collector = new Collector();
+        RpmSpecBatchStatistics statistics = RpmSpecBatchParser.createBatchParser().parseAll(m_root, "*.spec", collector);
+        assertEquals(50, statistics.getFiles());
+        assertEquals(0, statistics.getFailures());
+        assertEquals(50 * Files.size(P4BUGZILLA), statistics.getBytes());
+        assertEquals(50, collector.m_results.size());
+        Set<Path> paths = new HashSet<Path>();
+        for (RpmSpecParseResult result : collector.m_results) {
+            assertTrue(result.isSuccess());
+            assertEquals("[p4bugzilla]", result.getProperties().get("name").toString());
+            paths.add(result.getPath());
+        }
+        assertEquals(50, paths.size());
+        assertNotNull(statistics.toString());
+    }
+
+    @Test
+    public void testRelativeGlob() throws Exception {
+        Collector collector = new Collector();
+        RpmSpecBatchParser.createBatchParser().parseAll(m_root, "pkg3/SPECS/*.spec", collector);
+        assertEquals(7, collector.m_results.size());
+    }
+
+    @Test
+    public void testUnreadableDirectoryDoesNotStopTheBatch() throws Exception {
+        Path locked = m_root.resolve("pkg2");
+        Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(locked);
+        Files.setPosixFilePermissions(locked, EnumSet.noneOf(PosixFilePermission.class));
+        try {
+            // Permissions do not stop the superuser reading the directory
+            Assume.assumeTrue(!Files.isReadable(locked));
+            Collector collector = new Collector();
+            RpmSpecBatchStatistics statistics = RpmSpecBatchParser.createBatchParser().parseAll(m_root, "*.spec", collector);
+            assertEquals(1, statistics.getFailures());
+            assertEquals(50 - 7 + 1, statistics.getFiles());
+        }
+        finally {
+            Files.setPosixFilePermissions(locked, permissions);
+        }
+    }
+
+    @Test
+    public void testFailuresDoNotStopTheBatch() throws Exception {
+        List<Path> specFiles = Arrays.asList(P4BUGZILLA, m_root.resolve("missing.spec"), P4BUGZILLA);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Collector collector = new Collector();
+            RpmSpecBatchParser batch = RpmSpecBatchParser.createBatchParser(RpmSpecParser.createParser(), executor);
+            RpmSpecBatchStatistics statistics = batch.parseAll(specFiles, collector);
+            assertEquals(3, statistics.getFiles());
+            assertEquals(1, statistics.getFailures());
+            int failed = 0;
+            for (RpmSpecParseResult result : collector.m_results) {
+                if (!result.isSuccess()) {
+                    ++failed;
+                    assertEquals(m_root.resolve("missing.spec"), result.getPath());
+                    assertTrue(result.getError() instanceof IOException);
+                }
+            }
+            assertEquals(1, failed);
+            assertFalse(executor.isShutdown());
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ *  1. Redistributions of source code must retain the above copyright notice, this list 
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this 
+ *     list of conditions and the following disclaimer in the documentation and/or other 
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES 
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT 
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) 
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, 
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.Multimap;
+
+/**
+ * Tests of parsing a spec file into its sections and packages.
+ * 
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public class RpmSpecDocumentTest {
+
+    private static final Path MULTIPACKAGE = Paths.get("src/test/resources/specs/multipackage.spec");
+
+    @Test
+    public void testPackages() throws IOException {
+        RpmSpecDocument document = RpmSpecParser.createParser().parseDocument(MULTIPACKAGE);
+        List<RpmSpecPackage> packages = document.getPackages();
+        assertEquals(3, packages.size());
+        assertEquals("widget", packages.get(0).getName());
+        assertEquals("widget-devel", packages.get(1).getName());
+        assertEquals("libwidget", packages.get(2).getName());
+
+        assertEquals("Widgets for everyone", document.getMainPackage().getTag("summary"));
+        assertEquals("Headers for building against widget", document.getPackage("widget-devel").getTag("summary"));
+        assertEquals("widget = 3.2-1", document.getPackage("widget-devel").getTag("requires"));
+        assertEquals("libwidget.so.3", document.getPackage("libwidget").getTag("provides"));
+        assertNull(document.getPackage("libwidget").getTag("license"));
+    }
+
+    /** The tags of subpackages must not collide with the tags of the main package */
+    @Test
+    public void testMainProperties() throws IOException {
+        RpmSpecParser parser = RpmSpecParser.createParser();
+        Multimap<String, String> properties = parser.parse(MULTIPACKAGE);
+        assertEquals(Arrays.asList("Widgets for everyone"), properties.get("summary"));
+        assertEquals(Arrays.asList("libwidget = 3.2"), properties.get("requires"));
+        assertEquals("3.2", parser.getProperty(properties, "version"));
+        assertEquals(properties, parser.parseDocument(MULTIPACKAGE).getProperties());
+        assertEquals(properties, RpmSpecParser.createParser(RpmSpecParser.Classifier.REGEX).parse(MULTIPACKAGE));
+    }
+
+    @Test
+    public void testSections() throws IOException {
+        RpmSpecDocument document = RpmSpecParser.createParser().parseDocument(MULTIPACKAGE);
+        assertEquals(13, document.getSections().size());
+
+        RpmSpecSection description = document.getMainPackage().getSection("description");
+        assertEquals("widget", description.getPackageName());
+        assertEquals(Arrays.asList("Widgets for everyone.", "Requires: this is not a tag", ""), description.getLines());
+
+        RpmSpecSection files = document.getPackage("libwidget").getSection("files");
+        assertEquals("-n libwidget", files.getArguments());
+        assertEquals("%{_libdir}/libwidget.so.*\n\n", files.getText());
+        assertEquals(2, files.getLineCount());
+
+        assertEquals("-f widget.lang", document.getMainPackage().getSection("files").getArguments());
+        assertEquals("libwidget", document.getSection("post").getPackageName());
+        assertNull(document.getSection("prep").getPackageName());
+
+        RpmSpecSection changelog = document.getSection("changelog");
+        assertEquals(2, changelog.getLineCount());
+        assertEquals("- Split out the library", changelog.getLines().get(1));
+    }
+
+    @Test
+    public void testLargeFileList() throws IOException {
+        StringBuilder text = new StringBuilder("Name: big\r\n%files\r\n");
+        for (int i = 0; i < 5000; ++i) {
+            text.append("/usr/share/big/file").append(i).append("\r\n");
+        }
+        text.append("%changelog\r\n* first\r\n");
+        RpmSpecDocument document = RpmSpecParser.createParser().parseDocument(new StringReader(text.toString()));
+        RpmSpecSection files = document.getMainPackage().getSection("files");
+        assertEquals(5000, files.getLineCount());
+        assertEquals("/usr/share/big/file4999", files.getLines().get(4999));
+        assertEquals(Arrays.asList("* first"), document.getSection("changelog").getLines());
+    }
+
+    @Test
+    public void testPackageName() {
+        assertEquals("foo", SpecDocumentBuilder.packageName("foo", ""));
+        assertEquals("foo-devel", SpecDocumentBuilder.packageName("foo", "devel"));
+        assertEquals("bar", SpecDocumentBuilder.packageName("foo", "-n bar"));
+        assertEquals("foo-devel", SpecDocumentBuilder.packageName("foo", "-f files.list devel"));
+        assertEquals("foo", SpecDocumentBuilder.packageName("foo", "-p /sbin/ldconfig"));
+        assertEquals("foo", SpecDocumentBuilder.packageName("foo", "-- bar < 2"));
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ *  1. Redistributions of source code must retain the above copyright notice, this list 
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this 
+ *     list of conditions and the following disclaimer in the documentation and/or other 
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES 
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT 
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) 
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, 
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests of parsing a spec file on demand.
+ * 
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public class RpmSpecLazyResultTest {
+
+    /** A reader that counts how many characters have been read from it */
+    private static class CountingReader extends StringReader {
+        private int m_read;
+
+        CountingReader(String text) {
+            super(text);
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, Math.min(length, 16));
+            m_read += Math.max(read, 0);
+            return read;
+        }
+    }
+
+    @Test
+    public void testP4Bugzilla() throws IOException {
+        try (RpmSpecLazyResult spec = RpmSpecParser.createParser().parseLazily(Paths.get("src/test/resources/specs/p4bugzilla.spec"))) {
+            assertEquals("p4bugzilla-1.1-1", spec.get("provides"));
+            assertEquals("Warwick Hunter himself", spec.get("vendor"));
+            assertEquals("%{_tmppath}/p4bugzilla", spec.get("buildroot"));
+            assertEquals("jdk >= 1.5", spec.get("requires"));
+            assertEquals(Arrays.asList("jdk >= 1.5"), spec.getAll("requires"));
+            assertNull(spec.get("epoch"));
+        }
+    }
+
+    @Test
+    public void testReadsOnlyWhatIsNeeded() throws IOException {
+        StringBuilder text = new StringBuilder("%define base 2\nName: lazy\nVersion: %{base}.0\n%files\n");
+        for (int i = 0; i < 1000; ++i) {
+            text.append("/usr/share/lazy/file").append(i).append('\n');
+        }
+        text.append("%define late yes\n");
+        CountingReader reader = new CountingReader(text.toString());
+        RpmSpecLazyResult spec = RpmSpecParser.createParser().parseLazily(reader);
+        assertEquals("2.0", spec.get("version"));
+        assertEquals("2.0", spec.get("version"));
+        assertEquals("lazy", spec.get("name"));
+        assertTrue(reader.m_read < 200);
+        assertEquals(Arrays.asList("yes"), spec.getAll("late"));
+        assertEquals(text.length(), reader.m_read);
+    }
+
+    @Test
+    public void testForwardReference() throws IOException {
+        RpmSpecLazyResult spec = RpmSpecParser.createParser().parseLazily(new StringReader("Source0: %{name}.tar.gz\nName: later\n"));
+        assertEquals("later.tar.gz", spec.get("source0"));
+    }
+}
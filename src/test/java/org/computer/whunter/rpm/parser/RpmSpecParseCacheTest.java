@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ *  1. Redistributions of source code must retain the above copyright notice, this list 
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this 
+ *     list of conditions and the following disclaimer in the documentation and/or other 
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES 
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT 
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) 
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, 
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.Multimap;
+
+/**
+ * Tests of the cache of parsed spec files.
+ * 
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public class RpmSpecParseCacheTest {
+
+    @Rule
+    public TemporaryFolder m_folder = new TemporaryFolder();
+
+    private Path m_spec;
+    private Path m_directory;
+
+    @Before
+    public void copySpec() throws IOException {
+        m_spec = m_folder.getRoot().toPath().resolve("p4bugzilla.spec");
+        Files.copy(Paths.get("src/test/resources/specs/p4bugzilla.spec"), m_spec);
+        m_directory = m_folder.getRoot().toPath().resolve("cache");
+    }
+
+    @Test
+    public void testMemoryHits() throws IOException {
+        RpmSpecParseCache cache = RpmSpecParseCache.createCache(RpmSpecParser.createParser(), 10);
+        Multimap<String, String> first = cache.parse(m_spec);
+        Multimap<String, String> second = cache.parse(m_spec);
+        assertEquals("[p4bugzilla]", first.get("name").toString());
+        assertEquals(first, second);
+        RpmSpecCacheStatistics statistics = cache.getStatistics();
+        assertEquals(1, statistics.getMisses());
+        assertEquals(1, statistics.getHits());
+
+        // Touching the file without changing it is detected by the content hash
+        Files.setLastModifiedTime(m_spec, FileTime.fromMillis(Files.getLastModifiedTime(m_spec).toMillis() + 5000));
+        cache.parse(m_spec);
+        assertEquals(1, cache.getStatistics().getHashHits());
+        assertEquals(1, cache.getStatistics().getMisses());
+    }
+
+    @Test
+    public void testChangedFile() throws IOException {
+        RpmSpecParseCache cache = RpmSpecParseCache.createCache(RpmSpecParser.createParser(), 10);
+        assertEquals("[1.1]", cache.parse(m_spec).get("version").toString());
+        String text = new String(Files.readAllBytes(m_spec), StandardCharsets.UTF_8).replace("1.1", "2.0");
+        Files.write(m_spec, text.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(m_spec, FileTime.fromMillis(Files.getLastModifiedTime(m_spec).toMillis() + 5000));
+        assertEquals("[2.0]", cache.parse(m_spec).get("version").toString());
+        assertEquals(2, cache.getStatistics().getMisses());
+    }
+
+    @Test
+    public void testPersistence() throws IOException {
+        RpmSpecParseCache first = RpmSpecParseCache.createCache(RpmSpecParser.createParser(), 10, m_directory);
+        Multimap<String, String> parsed = first.parse(m_spec);
+        assertEquals(1, first.getStatistics().getMisses());
+
+        // A new cache, as if in a new JVM, reads the result from the directory
+        RpmSpecParseCache second = RpmSpecParseCache.createCache(RpmSpecParser.createParser(), 10, m_directory);
+        assertEquals(parsed, second.parse(m_spec));
+        assertEquals(0, second.getStatistics().getMisses());
+        assertEquals(1, second.getStatistics().getDiskHits());
+    }
+
+    @Test
+    public void testDamagedPersistence() throws IOException {
+        RpmSpecParseCache first = RpmSpecParseCache.createCache(RpmSpecParser.createParser(), 10, m_directory);
+        Multimap<String, String> parsed = first.parse(m_spec);
+
+        // Overwrite the count and the first length with values that would be far too big to allocate
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(m_directory)) {
+            for (Path file : files) {
+                byte[] bytes = Files.readAllBytes(file);
+                ByteBuffer.wrap(bytes).putInt(8, Integer.MAX_VALUE - 1).putInt(12, -1);
+                Files.write(file, bytes);
+            }
+        }
+
+        RpmSpecParseCache second = RpmSpecParseCache.createCache(RpmSpecParser.createParser(), 10, m_directory);
+        assertEquals(parsed, second.parse(m_spec));
+        assertEquals(1, second.getStatistics().getMisses());
+        assertEquals(0, second.getStatistics().getDiskHits());
+    }
+
+    @Test
+    public void testEviction() throws IOException {
+        Path other = m_folder.getRoot().toPath().resolve("other.spec");
+        Files.copy(m_spec, other);
+        RpmSpecParseCache cache = RpmSpecParseCache.createCache(RpmSpecParser.createParser(), 1);
+        cache.parse(m_spec);
+        cache.parse(other);
+        cache.parse(m_spec);
+        RpmSpecCacheStatistics statistics = cache.getStatistics();
+        assertEquals(2, statistics.getEvictions());
+        assertEquals(1, statistics.getSize());
+    }
+}
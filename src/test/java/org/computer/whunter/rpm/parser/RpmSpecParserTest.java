@@ -25,15 +25,34 @@
 package org.computer.whunter.rpm.parser;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import org.computer.whunter.rpm.parser.RpmSpecParser;
+import org.computer.whunter.rpm.parser.RpmSpecParser.Classifier;
 import org.junit.Test;
 
 import com.google.common.collect.Multimap;
@@ -103,6 +122,228 @@ public class RpmSpecParserTest {
         }
     }
 
+    /** Test that the scanner and the regular expressions classify every line in the same way */
+    @Test
+    public void testClassifiersAgree() {
+        String[] specs = { "src/test/resources/specs/p4bugzilla.spec", "src/test/resources/specs/classifier.spec" };
+        try {
+            for (String spec : specs) {
+                Multimap<String, String> scanned = RpmSpecParser.createParser(spec, Classifier.SCANNER).parse();
+                Multimap<String, String> matched = RpmSpecParser.createParser(spec, Classifier.REGEX).parse();
+                assertEquals(spec, matched, scanned);
+            }
+            Multimap<String, String> properties = RpmSpecParser.createParser(specs[1]).parse();
+            assertEquals("[tags]", properties.get("name").toString());
+            assertEquals("[1.0]", properties.get("version").toString());
+            assertEquals("[tags-1.0.tar.gz]", properties.get("source12").toString());
+            assertEquals("[x86_64 : with a colon]", properties.get("buildarch").toString());
+            assertEquals("[foo, bar >= 2]", properties.get("requires").toString());
+            assertEquals("[value with  tabs]", properties.get("tabbed").toString());
+            assertEquals("[empty name]", properties.get("").toString());
+            assertTrue(properties.get("source").isEmpty());
+            assertTrue(properties.get("source3x").isEmpty());
+            assertTrue(properties.get("lonely").isEmpty());
+        }
+        catch (FileNotFoundException e) {
+            fail(e.toString());
+        }
+    }
+
+    /** Test that one parser can be shared by many threads */
+    @Test
+    public void testSharedParser() throws Exception {
+        final RpmSpecParser parser = RpmSpecParser.createParser();
+        final Path spec = Paths.get("src/test/resources/specs/p4bugzilla.spec");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Multimap<String, String>>> results = new ArrayList<Future<Multimap<String, String>>>();
+            for (int i = 0; i < 64; ++i) {
+                results.add(executor.submit(new Callable<Multimap<String, String>>() {
+                    @Override
+                    public Multimap<String, String> call() throws IOException {
+                        return parser.parse(spec);
+                    }
+                }));
+            }
+            for (Future<Multimap<String, String>> result : results) {
+                checkP4BugzillaResults(toProperties(result.get()));
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testParseReader() throws IOException {
+        String spec = "%define base 2\nName: reader\nVersion: %{base}.0\n";
+        Multimap<String, String> properties = RpmSpecParser.createParser().parse(new StringReader(spec));
+        assertEquals("[reader]", properties.get("name").toString());
+        assertEquals("[2.0]", properties.get("version").toString());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnboundParser() throws FileNotFoundException {
+        RpmSpecParser.createParser().parse();
+    }
+
+    /** Test that a listener sees expanded values and can stop the parse once it has what it needs */
+    @Test
+    public void testListenerStopsEarly() throws IOException {
+        final Map<String, String> tags = new HashMap<String, String>();
+        final int[] lines = { 0 };
+        RpmSpecParser.createParser().parse(Paths.get("src/test/resources/specs/p4bugzilla.spec"), new RpmSpecListenerAdapter() {
+            @Override
+            public boolean line(String line) {
+                ++lines[0];
+                return true;
+            }
+
+            @Override
+            public boolean tag(String key, String value) {
+                tags.put(key, value);
+                return !key.equals("vendor");
+            }
+        });
+        assertEquals(8, lines[0]);
+        assertEquals("1.1", tags.get("version"));
+        assertEquals("Warwick Hunter himself", tags.get("vendor"));
+        assertFalse(tags.containsKey("provides"));
+    }
+
+    @Test
+    public void testListenerSections() throws IOException {
+        final List<String> sections = new ArrayList<String>();
+        final Map<String, String> tags = new HashMap<String, String>();
+        RpmSpecParser.createParser().parse(Paths.get("src/test/resources/specs/p4bugzilla.spec"), new RpmSpecListenerAdapter() {
+            @Override
+            public boolean tag(String key, String value) {
+                tags.put(key, value);
+                return true;
+            }
+
+            @Override
+            public boolean sectionStart(String section, String arguments) {
+                sections.add(section);
+                return true;
+            }
+        });
+        assertEquals(Arrays.asList("description", "prep", "build", "install", "clean", "files", "post", "preun", "changelog"), 
+                     sections);
+        assertEquals("p4bugzilla-1.1-1", tags.get("provides"));
+    }
+
+    @Test
+    public void testConditionals() throws IOException {
+        Path specFile = Paths.get("src/test/resources/specs/conditionals.spec");
+        Map<String, String> rhel = new HashMap<String, String>();
+        rhel.put("rhel", "7");
+        rhel.put("dist", ".el7");
+        rhel.put("_arch", "x86_64");
+        rhel.put("ix86", "i386 i486 i586 i686");
+        for (Classifier classifier : Classifier.values()) {
+            RpmSpecParser parser = RpmSpecParser.createParser(classifier).withDefines(rhel);
+            Multimap<String, String> properties = parser.parse(specFile);
+            assertEquals("1.el7", parser.getProperty(properties, "release"));
+            assertEquals("systemd", parser.getProperty(properties, "requires"));
+            assertEquals("systemd", parser.getProperty(properties, "initsystem"));
+            assertEquals("GPLv2+", parser.getProperty(properties, "license"));
+            assertEquals("/usr/lib64", parser.getProperty(properties, "prefix"));
+            assertEquals("Built with documentation for systemd", parser.getProperty(properties, "summary"));
+            assertFalse(properties.containsKey("rhel"));
+        }
+
+        Map<String, String> i686 = new HashMap<String, String>();
+        i686.put("_arch", "i686");
+        i686.put("ix86", "i386 i486 i586 i686");
+        RpmSpecParser parser = RpmSpecParser.createParser().withDefines(i686);
+        Multimap<String, String> properties = parser.parse(specFile);
+        assertEquals("1", parser.getProperty(properties, "release"));
+        assertEquals("initscripts", parser.getProperty(properties, "requires"));
+        assertEquals("GPLv2", parser.getProperty(properties, "license"));
+        assertFalse(properties.containsKey("prefix"));
+        assertFalse(properties.containsKey("summary"));
+
+        Map<String, String> fedora = new HashMap<String, String>();
+        fedora.put("fedora", "40");
+        fedora.put("suse_version", "1500");
+        RpmSpecDocument document = RpmSpecParser.createParser().withDefines(fedora).parseDocument(specFile);
+        assertEquals("systemd-sysvinit", document.getMainPackage().getTag("requires"));
+        assertEquals("Only for Fedora", document.getPackage("multidistro-fedora").getTag("summary"));
+        assertEquals(1, RpmSpecParser.createParser().parseDocument(specFile).getPackages().size());
+    }
+
+    @Test
+    public void testMonitor() throws Exception {
+        final List<RpmSpecParseMetrics> parsed = new ArrayList<RpmSpecParseMetrics>();
+        RpmSpecParser parser = RpmSpecParser.createParser().withMonitor(new RpmSpecParseMonitor() {
+            @Override
+            public void parsed(RpmSpecParseMetrics metrics) {
+                parsed.add(metrics);
+            }
+        });
+        Multimap<String, String> properties = parser.parse(Paths.get("src/test/resources/specs/p4bugzilla.spec"));
+        assertEquals(1, parsed.size());
+        RpmSpecParseMetrics metrics = parsed.get(0);
+        assertEquals(60, metrics.getLines());
+        assertEquals(1, metrics.getMacros());
+        assertEquals(properties.size(), metrics.getTags() + metrics.getMacros());
+        assertTrue(metrics.getExpansions() >= 4);
+        assertEquals(1433, metrics.getBytes());
+        assertTrue(metrics.getTotalNanos() > 0);
+        // Loading the file is timed as reading, before any line is classified
+        assertTrue(metrics.getReadNanos() > 0);
+
+        parser.parse(new StringReader("Name: reader\n"));
+        assertEquals(-1, parsed.get(1).getBytes());
+        assertEquals(0, parsed.get(1).getReadNanos());
+
+        RpmSpecParserMetrics totals = new RpmSpecParserMetrics();
+        ObjectName name = totals.register("RpmSpecParserTest");
+        try {
+            parser.withMonitor(totals).parse(Paths.get("src/test/resources/specs/p4bugzilla.spec"));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(1L, server.getAttribute(name, "Parses"));
+            assertEquals(60L, server.getAttribute(name, "Lines"));
+        }
+        finally {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        }
+    }
+
+    @Test
+    public void testMacros() throws IOException {
+        Path specFile = Paths.get("src/test/resources/specs/sysmacros.spec");
+        MacroTable macros = MacroTable.load(Paths.get("src/test/resources/macros/macros"));
+        for (Classifier classifier : Classifier.values()) {
+            RpmSpecParser parser = RpmSpecParser.createParser(classifier).withMacros(macros);
+            Multimap<String, String> properties = parser.parse(specFile);
+            assertEquals("4.0", parser.getProperty(properties, "version"));
+            assertEquals("1", parser.getProperty(properties, "release"));
+            assertEquals("/usr/lib64", parser.getProperty(properties, "prefix"));
+            assertEquals("http://example.com/usr/bin/sysmacros", parser.getProperty(properties, "url"));
+            assertEquals("BSD", parser.getProperty(properties, "license"));
+            assertEquals("x86_64", parser.getProperty(properties, "buildarch"));
+            assertEquals("", parser.getProperty(properties, "flags"));
+            assertFalse(properties.containsKey("_libdir"));
+        }
+
+        // The defines of the caller take precedence over the system macros
+        Map<String, String> defines = new HashMap<String, String>();
+        defines.put("_prefix", "/opt");
+        RpmSpecParser parser = RpmSpecParser.createParser().withMacros(macros).withDefines(defines);
+        assertEquals("/opt/lib64", parser.parseProperties(specFile).get(RpmTag.PREFIX));
+        assertEquals("1", parser.parseLazily(specFile).get("release"));
+        assertEquals("/opt/lib64", parser.parseDocument(specFile).getMainPackage().getTag("prefix"));
+
+        // A macro undefined by the spec file is hidden even if the caller defines it
+        parser = RpmSpecParser.createParser().withDefines(Collections.singletonMap("_hardened_build", "1"));
+        assertEquals("BSD", parser.parseProperties(specFile).get(RpmTag.LICENSE));
+
+        // Without the system macros the references are left as they are
+        assertEquals("%{_libdir}", RpmSpecParser.createParser().parseProperties(specFile).get(RpmTag.PREFIX));
+    }
+
     @Test
     public void testExampleCode() {
         try {
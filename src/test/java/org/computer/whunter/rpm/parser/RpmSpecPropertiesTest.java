@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ *  1. Redistributions of source code must retain the above copyright notice, this list 
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this 
+ *     list of conditions and the following disclaimer in the documentation and/or other 
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES 
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT 
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) 
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, 
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.Multimap;
+
+/**
+ * Tests of the compact form of the properties of a spec file.
+ * 
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public class RpmSpecPropertiesTest {
+
+    private static final Path P4BUGZILLA = Paths.get("src/test/resources/specs/p4bugzilla.spec");
+
+    @Test
+    public void testSameAsMultimap() throws IOException {
+        RpmSpecParser parser = RpmSpecParser.createParser();
+        Multimap<String, String> expected = parser.parse(P4BUGZILLA);
+        RpmSpecProperties properties = parser.parseProperties(P4BUGZILLA);
+        assertEquals(expected, properties.asMultimap());
+        // The multimap is not kept by the properties
+        assertNotSame(properties.asMultimap(), properties.asMultimap());
+        assertEquals(expected.size(), properties.size());
+        assertEquals(expected.keySet().size(), properties.getKeys().size());
+        assertEquals(properties, RpmSpecProperties.copyOf(expected));
+
+        assertEquals("p4bugzilla", properties.get(RpmTag.NAME));
+        assertEquals("p4bugzilla-1.1-1", properties.get("provides"));
+        assertEquals(Arrays.asList("jdk >= 1.5"), properties.getAll(RpmTag.REQUIRES));
+        assertEquals("Warwick Hunter", properties.get("who"));
+        assertTrue(properties.containsKey("source0"));
+        assertNull(properties.get("epoch"));
+        assertEquals(Collections.emptyList(), properties.getAll("undefined"));
+    }
+
+    @Test
+    public void testCanonicalStrings() throws IOException {
+        RpmSpecParser parser = RpmSpecParser.createParser(RpmSpecParser.Classifier.REGEX);
+        RpmSpecProperties first = parser.parseProperties(new StringReader("Name: one\nLICENSE: BSD\n%define _custom x\n"));
+        RpmSpecProperties second = parser.parseProperties(new StringReader("Name: two\nLicense: BSD\n%define _custom y\n"));
+        assertSame(first.get(RpmTag.LICENSE), second.get(RpmTag.LICENSE));
+        for (String key : first.getKeys()) {
+            RpmTag tag = RpmTag.forKey(key);
+            if (tag != null) {
+                assertSame(tag.getKey(), key);
+            }
+        }
+        String custom = "_custom";
+        assertSame(first.getKeys().get(first.getKeys().indexOf(custom)), second.getKeys().get(second.getKeys().indexOf(custom)));
+    }
+
+    @Test
+    public void testEqualsIgnoresKeyOrder() {
+        RpmSpecProperties properties = RpmSpecProperties.copyOf(
+                ImmutableListMultimap.of("name", "widget", "requires", "foo", "requires", "bar"));
+        RpmSpecProperties reordered = RpmSpecProperties.copyOf(
+                ImmutableListMultimap.of("requires", "foo", "requires", "bar", "name", "widget"));
+        assertEquals(properties, reordered);
+        assertEquals(properties.hashCode(), reordered.hashCode());
+
+        // The order of the values of a key does matter
+        assertFalse(properties.equals(RpmSpecProperties.copyOf(
+                ImmutableListMultimap.of("name", "widget", "requires", "bar", "requires", "foo"))));
+        assertFalse(properties.equals(RpmSpecProperties.copyOf(
+                ImmutableListMultimap.of("name", "widget", "requires", "foo", "provides", "bar"))));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutable() throws IOException {
+        RpmSpecParser.createParser().parseProperties(P4BUGZILLA).getAll(RpmTag.NAME).set(0, "changed");
+    }
+
+    @Test
+    public void testTags() {
+        for (String field : RpmSpecParser.FIELDS) {
+            if (!field.startsWith("source")) {
+                assertEquals(field.toLowerCase(), RpmTag.forKey(field.toLowerCase()).getKey());
+            }
+        }
+        assertEquals(RpmSpecParser.FIELDS.length - 1, RpmTag.values().length);
+        assertNull(RpmTag.forKey("source0"));
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ * Copyright (c) 2026, agent. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ *  1. Redistributions of source code must retain the above copyright notice, this list 
+ *     of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice, this 
+ *     list of conditions and the following disclaimer in the documentation and/or other 
+ *     materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES 
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT 
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) 
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, 
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.computer.whunter.rpm.watch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.computer.whunter.rpm.parser.RpmSpecParser;
+import org.computer.whunter.rpm.watch.RpmSpecChangeEvent.Type;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of watching a directory tree of spec files.
+ * 
+ * @author agent (agent@local)
+ * @date   2026-10-17
+ */
+public class RpmSpecWatcherTest {
+
+    private final BlockingQueue<RpmSpecChangeEvent> m_events = new LinkedBlockingQueue<RpmSpecChangeEvent>();
+    private final BlockingQueue<LogRecord> m_warnings = new LinkedBlockingQueue<LogRecord>();
+    private final Logger m_logger = Logger.getLogger(RpmSpecWatcher.class.getName());
+    private final Handler m_handler = new Handler() {
+        @Override
+        public void publish(LogRecord record) {
+            if (record.getLevel() == Level.WARNING) {
+                m_warnings.add(record);
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+    private Path m_root;
+    private RpmSpecWatcher m_watcher;
+
+    @Before
+    public void setUp() throws Exception {
+        m_root = Files.createTempDirectory("rpm-spec-watcher");
+        m_logger.addHandler(m_handler);
+        m_logger.setUseParentHandlers(false);
+        write(m_root.resolve("widget.spec"), "Name: widget", "Version: 1.0", "License: BSD");
+        write(m_root.resolve("README"), "Not a spec file");
+        m_watcher = RpmSpecWatcher.createWatcher(RpmSpecParser.createParser(), m_root, "*.spec", 100);
+        m_watcher.subscribe(new RpmSpecWatcher.Subscriber() {
+            @Override
+            public void changed(RpmSpecChangeEvent event) {
+                m_events.add(event);
+            }
+        });
+        m_watcher.subscribe(new RpmSpecWatcher.Subscriber() {
+            @Override
+            public void changed(RpmSpecChangeEvent event) {
+                throw new IllegalStateException("A broken subscriber");
+            }
+        });
+        m_watcher.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        m_watcher.close();
+        m_logger.removeHandler(m_handler);
+        m_logger.setUseParentHandlers(true);
+        Files.walkFileTree(m_root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path directory, IOException e) throws IOException {
+                Files.delete(directory);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Test
+    public void testChanges() throws Exception {
+        Path widget = m_root.resolve("widget.spec");
+        RpmSpecChangeEvent event = next();
+        assertEquals(Type.ADDED, event.getType());
+        assertEquals(widget, event.getPath());
+        assertEquals(Arrays.asList("license", "name", "version"), event.getAddedKeys());
+        assertEquals("1.0", m_watcher.getProperties(widget).get("version"));
+
+        // The broken subscriber is logged with the path of the event
+        LogRecord warning = m_warnings.poll(10, TimeUnit.SECONDS);
+        assertNotNull("The broken subscriber was not logged", warning);
+        assertTrue(warning.getMessage(), warning.getMessage().contains(widget.toString()));
+        assertTrue(warning.getThrown() instanceof IllegalStateException);
+
+        // A burst of writes is parsed once
+        write(widget, "Name: widget", "Version: 1.1", "License: BSD");
+        write(widget, "Name: widget", "Version: 2.0", "Summary: Widgets");
+        event = next();
+        assertEquals(Type.MODIFIED, event.getType());
+        assertEquals(Collections.singletonList("summary"), event.getAddedKeys());
+        assertEquals(Collections.singletonList("license"), event.getRemovedKeys());
+        assertEquals(Collections.singletonList("version"), event.getModifiedKeys());
+        assertEquals("1.0", event.getOldProperties().get("version"));
+        assertEquals("2.0", m_watcher.getProperties(widget).get("version"));
+
+        // Spec files in new directories are found, other files are ignored
+        Path gadget = Files.createDirectories(m_root.resolve("SPECS/gadget")).resolve("gadget.spec");
+        write(m_root.resolve("SPECS/notes.txt"), "Nothing to see");
+        write(gadget, "Name: gadget");
+        event = next();
+        assertEquals(Type.ADDED, event.getType());
+        assertEquals(gadget, event.getPath());
+        assertEquals("gadget", m_watcher.getProperties(gadget).get("name"));
+        assertEquals(2, m_watcher.getSpecs().size());
+
+        Files.delete(widget);
+        event = next();
+        assertEquals(Type.REMOVED, event.getType());
+        assertEquals(widget, event.getPath());
+        assertNull(m_watcher.getProperties(widget));
+        assertNull(m_events.poll(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testUnchanged() throws Exception {
+        assertEquals(Type.ADDED, next().getType());
+        write(m_root.resolve("widget.spec"), "Name: widget", "Version: 1.0", "License: BSD");
+        assertNull(m_events.poll(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testUnreadableDirectory() throws Exception {
+        Path locked = Files.createDirectories(m_root.resolve("locked"));
+        write(locked.resolve("hidden.spec"), "Name: hidden");
+        Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(locked);
+        Files.setPosixFilePermissions(locked, EnumSet.noneOf(PosixFilePermission.class));
+        try {
+            // Permissions do not stop the superuser reading the directory
+            Assume.assumeTrue(!Files.isReadable(locked));
+            try (RpmSpecWatcher watcher = RpmSpecWatcher.createWatcher(RpmSpecParser.createParser(), m_root, "*.spec")) {
+                watcher.start();
+                assertEquals(Collections.singleton(m_root.resolve("widget.spec")), watcher.getSpecs().keySet());
+            }
+        }
+        finally {
+            Files.setPosixFilePermissions(locked, permissions);
+        }
+    }
+
+    private RpmSpecChangeEvent next() throws InterruptedException {
+        RpmSpecChangeEvent event = m_events.poll(10, TimeUnit.SECONDS);
+        assertNotNull("No event was published", event);
+        return event;
+    }
+
+    private static void write(Path path, String... lines) throws IOException {
+        Files.write(path, Arrays.asList(lines), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,4 @@
+# Two names, so the reference to the name cannot be expanded
+Name: duplicate
+Name: again
+Version: %{name}
@@ -0,0 +1,18 @@
+# Lines that exercise the corners of the line classifiers
+%define	tabbed value	with  tabs
+%define  empty name
+%define lonely
+%definenot a macro
+NAME:        tags
+vErSiOn:1.0
+Name : not a tag
+Source:      not numbered
+SOURCE12:    %{name}-%{version}.tar.gz
+source3x:    not a source
+BuildRoot:
+buildarch:   x86_64 : with a colon
+Requires:    foo
+Requires:    bar >= 2
+Release: 3%{?dist}
+%description
+Summary text that mentions Url: in passing
@@ -0,0 +1,50 @@
+# A spec file that builds differently for each distribution and architecture
+%define with_docs 1
+Name: multidistro
+Version: 2.0
+Release: 1%{?dist}
+
+%if 0%{?rhel} >= 7
+Requires: systemd
+%define initsystem systemd
+%else
+%if 0%{?suse_version}
+Requires: systemd-sysvinit
+%define initsystem suse
+%else
+Requires: initscripts
+%define initsystem sysv
+%endif
+%endif
+
+%ifarch x86_64 aarch64
+License: GPLv2+
+%else
+License: GPLv2
+%endif
+
+%ifnarch %{ix86}
+Prefix: /usr/lib64
+%endif
+
+%if %{with_docs} && "%{initsystem}" != "sysv"
+Summary: Built with documentation for %{initsystem}
+%endif
+%if ! %{with_docs}
+Summary: Built without documentation
+%endif
+
+%if 0%{?fedora}
+%package fedora
+Summary: Only for Fedora
+%endif
+
+%description
+Builds everywhere.
+
+%files
+%if 0%{?rhel}
+%{_unitdir}/multidistro.service
+%else
+%{_initrddir}/multidistro
+%endif
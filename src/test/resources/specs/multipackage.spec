@@ -0,0 +1,52 @@
+# A spec file that builds several packages
+%define major 3
+Name: widget
+Version: %{major}.2
+Release: 1
+Summary: Widgets for everyone
+License: BSD
+Requires: libwidget = %{version}
+
+%package devel
+Summary: Headers for building against %{name}
+Requires: %{name} = %{version}-%{release}
+
+%package -n lib%{name}
+Summary: The shared library of %{name}
+Provides: libwidget.so.%{major}
+
+%description
+Widgets for everyone.
+Requires: this is not a tag
+
+%description devel
+The headers.
+
+%description -n libwidget
+The library.
+
+%prep
+%setup -q
+
+%build
+make %{?_smp_mflags}
+
+%install
+make install DESTDIR=%{buildroot}
+
+%post -n libwidget -p /sbin/ldconfig
+
+%files -f widget.lang
+%defattr(-,root,root,-)
+%{_bindir}/widget
+%doc README
+
+%files devel
+%{_includedir}/widget.h
+
+%files -n libwidget
+%{_libdir}/libwidget.so.*
+
+%changelog
+* Sat Oct 17 2026 Warwick Hunter <w.hunter@computer.org> - 3.2-1
+- Split out the library
@@ -0,0 +1,25 @@
+# A spec file that refers to system macros
+%global major 4
+%undefine dist
+Name: sysmacros
+Version: %{major}.0
+Release: 1%{?dist}
+Prefix: %{_libdir}
+URL: http://example.com%{_bindir}/%{name}
+
+%undefine _hardened_build
+%if 0%{?_hardened_build}
+License: hardened
+%else
+License: BSD
+%endif
+
+%ifarch x86_64
+BuildArch: x86_64
+%endif
+
+%build
+%define flags %{_smp_mflags}
+
+%install
+%__make_install